@@ -0,0 +1,45 @@
+package com.example.task_service.task_service.jmh;
+
+import com.example.task_service.task_service.dto.UserDTO;
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // У каждой задачи свой пользователь, чтобы мапперы не работали с одним и тем же объектом
+    static List<Task> tasks(int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        return IntStream.range(0, count)
+                .mapToObj(i -> Task.builder()
+                        .id((long) i)
+                        .title("Task " + i)
+                        .description("Description of task " + i)
+                        .completed(i % 2 == 0)
+                        .active(true)
+                        .createdAt(now)
+                        .updatedAt(now.plusMinutes(i))
+                        .user(User.builder()
+                                .id((long) i)
+                                .username("user" + i)
+                                .email("user" + i + "@example.com")
+                                .password("password")
+                                .active(true)
+                                .build())
+                        .build())
+                .toList();
+    }
+
+    static List<UserDTO> userDTOs(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new UserDTO("user" + i, "user" + i + "@example.com", "password", Set.of("ADMIN", "EMPLOYEE")))
+                .toList();
+    }
+}
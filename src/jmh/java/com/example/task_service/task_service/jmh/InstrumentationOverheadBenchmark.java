@@ -0,0 +1,157 @@
+package com.example.task_service.task_service.jmh;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы на вызов: логирующий аспект времени выполнения (как @LogExecutionTime при root DEBUG)
+ * против Micrometer @Timed с гистограммой и SLO-бакетами, как в application.yml.
+ * Исходников log-execution-starter в репозитории нет, поэтому его аспект воспроизведён здесь:
+ * замер System.nanoTime и одна отформатированная строка лога на вызов через logback в пустой поток.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationOverheadBenchmark {
+
+    private Target direct;
+    private Target proxied;
+    private Target logged;
+    private Target timed;
+    private long value;
+
+    @Setup
+    public void setUp() {
+        direct = new Target();
+        proxied = proxy();
+        logged = proxy(new LogExecutionTimeAspect(nullLogger()));
+        timed = proxy(new TimedAspect(prometheusRegistry()));
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.work(value++);
+    }
+
+    @Benchmark
+    public long proxyWithoutAspect() {
+        return proxied.work(value++);
+    }
+
+    @Benchmark
+    public long logExecutionTime() {
+        return logged.work(value++);
+    }
+
+    @Benchmark
+    public long micrometerTimed() {
+        return timed.work(value++);
+    }
+
+    private static Target proxy(Object... aspects) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Target());
+        factory.setProxyTargetClass(true);
+        for (Object aspect : aspects) {
+            factory.addAspect(aspect);
+        }
+        return factory.getProxy();
+    }
+
+    private static PrometheusMeterRegistry prometheusRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .serviceLevelObjectives(ms(5), ms(25), ms(100), ms(250), ms(1000))
+                        .minimumExpectedValue(ms(1))
+                        .maximumExpectedValue(ms(10_000))
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+
+    private static double ms(long millis) {
+        return Duration.ofMillis(millis).toNanos();
+    }
+
+    private static Logger nullLogger() {
+        LoggerContext context = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger logger = context.getLogger("com.example.logexecution");
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+        logger.setAdditive(false);
+        return logger;
+    }
+
+    public static class Target {
+        @Timed("service.method")
+        public long work(long x) {
+            return x * 31 + 7;
+        }
+    }
+
+    @Aspect
+    public static class LogExecutionTimeAspect {
+        private final Logger log;
+
+        public LogExecutionTimeAspect(Logger log) {
+            this.log = log;
+        }
+
+        @Around("@annotation(io.micrometer.core.annotation.Timed)")
+        public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                log.debug("Method {} executed in {} ms", joinPoint.getSignature().toShortString(),
+                        (System.nanoTime() - start) / 1_000_000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.task_service.task_service.jmh;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.dto.UserDTO;
+import com.example.task_service.task_service.mapper.TaskMapperImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson-сериализация списков DTO с той же конфигурацией, что даёт Spring Boot (JavaTimeModule, даты строками).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectWriter taskListWriter;
+    private ObjectReader taskListReader;
+    private ObjectWriter userListWriter;
+
+    private List<TaskDTO> tasks;
+    private List<UserDTO> users;
+    private byte[] tasksJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        taskListWriter = objectMapper.writerFor(new TypeReference<List<TaskDTO>>() { });
+        taskListReader = objectMapper.readerFor(new TypeReference<List<TaskDTO>>() { });
+        userListWriter = objectMapper.writerFor(new TypeReference<List<UserDTO>>() { });
+
+        TaskMapperImpl taskMapper = new TaskMapperImpl();
+        tasks = BenchmarkData.tasks(size).stream().map(taskMapper::toDTO).toList();
+        users = BenchmarkData.userDTOs(size);
+        tasksJson = taskListWriter.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeTasks() throws IOException {
+        return taskListWriter.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public List<TaskDTO> deserializeTasks() throws IOException {
+        return taskListReader.readValue(tasksJson);
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws IOException {
+        return userListWriter.writeValueAsBytes(users);
+    }
+}
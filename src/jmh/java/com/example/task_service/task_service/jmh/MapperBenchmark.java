@@ -0,0 +1,75 @@
+package com.example.task_service.task_service.jmh;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.dto.UserDTO;
+import com.example.task_service.task_service.entity.Role;
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.mapper.TaskMapper;
+import com.example.task_service.task_service.mapper.TaskMapperImpl;
+import com.example.task_service.task_service.mapper.UserMapper;
+import com.example.task_service.task_service.mapper.UserMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сгенерированные MapStruct-мапперы без Spring-контекста.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "100"})
+    private int size;
+
+    private final TaskMapper taskMapper = new TaskMapperImpl();
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private List<Task> tasks;
+    private List<TaskDTO> taskDTOs;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        tasks = BenchmarkData.tasks(size);
+        taskDTOs = tasks.stream().map(taskMapper::toDTO).toList();
+        Set<Role> roles = Set.of(new Role(1L, "ADMIN", null), new Role(2L, "EMPLOYEE", null));
+        users = tasks.stream().map(task -> {
+            User user = task.getUser();
+            user.setRoles(roles);
+            return user;
+        }).toList();
+    }
+
+    @Benchmark
+    public List<TaskDTO> taskToDTO() {
+        return tasks.stream().map(taskMapper::toDTO).toList();
+    }
+
+    @Benchmark
+    public List<Task> taskToEntity() {
+        return taskDTOs.stream().map(taskMapper::toEntity).toList();
+    }
+
+    @Benchmark
+    public List<UserDTO> userToDTO() {
+        return users.stream().map(userMapper::toDTO).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.task_service.task_service.jmh;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.mapper.TaskMapperImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU на сериализацию страницы задач в JSON, CBOR и Smile, без сжатия и со сжатием gzip/deflate.
+ * Размеры тел для тех же вариантов печатает PayloadSizeBenchmarkTest (mvn -Pbenchmark test).
+ * Запуск: mvn -Pjmh -DskipTests verify -Djmh.args="PayloadEncodingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"none", "gzip", "deflate"})
+    private String compression;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<TaskDTO> tasks;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Та же конфигурация, что у конвертеров в BinaryEncodingConfig: общий builder, другая фабрика
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory()).build();
+        writer = objectMapper.writerFor(new TypeReference<List<TaskDTO>>() { });
+        reader = objectMapper.readerFor(new TypeReference<List<TaskDTO>>() { });
+
+        TaskMapperImpl taskMapper = new TaskMapperImpl();
+        tasks = BenchmarkData.tasks(size).stream().map(taskMapper::toDTO).toList();
+        encoded = writer.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(encoded.length);
+        try (OutputStream out = compress(buffer)) {
+            writer.writeValue(out, tasks);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Разбор на стороне клиента (тело уже распаковано): от compression не зависит
+    @Benchmark
+    public List<TaskDTO> deserialize() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private JsonFactory factory() {
+        return switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalStateException("Unknown format: " + format);
+        };
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        return switch (compression) {
+            case "none" -> out;
+            case "gzip" -> new GZIPOutputStream(out);
+            case "deflate" -> new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION));
+            default -> throw new IllegalStateException("Unknown compression: " + compression);
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.task_service.task_service.jmh;
+
+import com.example.task_service.task_service.TaskServiceApplication;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.pagination.CursorPage;
+import com.example.task_service.task_service.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-методы TaskService на полном Spring-контексте и Postgres из Testcontainers.
+ * Измеряется путь сервис -> репозиторий -> БД без HTTP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    private static final int USERS = 100;
+    private static final int TASKS = 50_000;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private long taskId;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(TaskServiceApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "server.port=0",
+                        "logging.level.root=WARN",
+                        "spring.jpa.show-sql=false")
+                .run();
+        taskService = context.getBean(TaskService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (username, email, password, created_at, updated_at, active) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'password', now(), now(), true "
+                + "FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO task (title, description, completed, active, created_at, updated_at, user_id) "
+                + "SELECT 'Task ' || g, 'Description of task ' || g, g % 2 = 0, true, now(), now(), u.id "
+                + "FROM generate_series(1, ?) g JOIN users u ON u.username = 'user' || (g % ? + 1)", TASKS, USERS);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+        taskId = jdbcTemplate.queryForObject("SELECT max(id) FROM task", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public TaskDTO getTaskById() {
+        // После первого вызова отвечает second-level cache
+        return taskService.getTaskById(taskId);
+    }
+
+    @Benchmark
+    public CursorPage<TaskDTO> getTasksAfter() {
+        return taskService.getTasksAfter(null, 50);
+    }
+
+    @Benchmark
+    public CursorPage<TaskDTO> getTasksByUsernameAfter() {
+        return taskService.getTasksByUsernameAfter("user42", null, 50);
+    }
+
+    @Benchmark
+    public CursorPage<TaskDTO> searchTasks() {
+        return taskService.searchTasks("task 4242", null, true, null, 20);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.task_service.task_service.archive;
+
+// Почему задача уходит в архив; тег reason метрик TaskArchiver
+public enum ArchiveReason {
+    INACTIVE,
+    COMPLETED
+}
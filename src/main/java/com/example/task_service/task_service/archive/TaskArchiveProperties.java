@@ -0,0 +1,32 @@
+package com.example.task_service.task_service.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "task.archive")
+public class TaskArchiveProperties {
+    private boolean enabled = true;
+
+    // Завершённые задачи, не менявшиеся дольше этого срока, уходят в архив; мягко удалённые - сразу
+    private Duration completedRetention = Duration.ofDays(90);
+
+    // Строк в одной пачке (одна транзакция DELETE ... RETURNING -> INSERT)
+    private int batchSize = 500;
+
+    // Как часто архиватор проверяет, можно ли взять следующую пачку
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Пауза, когда переносить больше нечего или пачка упала
+    private Duration idleInterval = Duration.ofMinutes(5);
+
+    // Доля времени, которую архиватор может держать БД, пока разбирает хвост: после пачки длиной L пауза L*(1-d)/d
+    private double maxDutyCycle = 0.2;
+
+    // Архиватор пропускает проход, пока вызовы сервисов занимают больше этой доли адаптивного лимита
+    private double yieldAboveUtilization = 0.5;
+}
@@ -0,0 +1,126 @@
+package com.example.task_service.task_service.archive;
+
+import com.example.task_service.task_service.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.task_service.task_service.entity.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перенос мягко удалённых и давно завершённых задач из task в task_archive небольшими пачками.
+ * Пачка - один запрос: DELETE ... RETURNING из task и INSERT удалённых строк в архив, кандидаты захватываются
+ * через FOR UPDATE SKIP LOCKED, поэтому экземпляры сервиса не мешают друг другу и строкам, которые сейчас правят.
+ * Архиватор уступает живому трафику: пропускает проход при загрузке адаптивного лимита выше yield-above-utilization,
+ * а пока разбирает хвост, держит БД не больше max-duty-cycle времени. Одна пачка за проход - поток планировщика
+ * общий с TaskOutboxPublisher и не должен засыпать.
+ */
+@Slf4j
+@Component
+public class TaskArchiver {
+    private static final String MOVED_COLUMNS = "id, title, description, completed, active, created_at, updated_at, user_id";
+    private static final String ARCHIVE_SQL = "WITH moved AS ("
+            + "DELETE FROM task WHERE id IN (SELECT id FROM task WHERE %s LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING " + MOVED_COLUMNS + ") "
+            + "INSERT INTO task_archive (" + MOVED_COLUMNS + ", archived_at) "
+            + "SELECT " + MOVED_COLUMNS + ", :now FROM moved RETURNING id";
+    private static final String INACTIVE_SQL = ARCHIVE_SQL.formatted("NOT active");
+    private static final String COMPLETED_SQL = ARCHIVE_SQL.formatted("completed AND active AND updated_at < :before");
+
+    private final EntityManager entityManager;
+    private final TaskArchiveProperties properties;
+    private final ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<ArchiveReason, Counter> moved = new EnumMap<>(ArchiveReason.class);
+    private final Map<ArchiveReason, Timer> batchLatency = new EnumMap<>(ArchiveReason.class);
+    private final Counter yielded;
+    private final Counter failures;
+
+    private volatile long resumeAt = System.nanoTime();
+
+    public TaskArchiver(EntityManager entityManager,
+                        TaskArchiveProperties properties,
+                        ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (ArchiveReason reason : ArchiveReason.values()) {
+            String tag = reason.name().toLowerCase();
+            moved.put(reason, Counter.builder("task.archive.moved").tag("reason", tag).register(meterRegistry));
+            batchLatency.put(reason, Timer.builder("task.archive.batch")
+                    .tag("reason", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.yielded = Counter.builder("task.archive.yielded").register(meterRegistry);
+        this.failures = Counter.builder("task.archive.failures").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${task.archive.poll-interval:PT1S}")
+    public void archive() {
+        if (!properties.isEnabled() || System.nanoTime() - resumeAt < 0) {
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiter.getIfAvailable();
+        if (limiter != null && limiter.utilization() > properties.getYieldAboveUtilization()) {
+            yielded.increment();
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            boolean backlog = false;
+            for (ArchiveReason reason : ArchiveReason.values()) {
+                backlog |= archiveBatch(reason) == properties.getBatchSize();
+            }
+            long busy = System.nanoTime() - start;
+            double duty = properties.getMaxDutyCycle();
+            long pause = backlog ? (long) (busy * (1 - duty) / duty) : properties.getIdleInterval().toNanos();
+            resumeAt = System.nanoTime() + pause;
+        } catch (RuntimeException e) {
+            failures.increment();
+            resumeAt = System.nanoTime() + properties.getIdleInterval().toNanos();
+            log.warn("Task archiving failed, will retry in {}", properties.getIdleInterval(), e);
+        }
+    }
+
+    int archiveBatch(ArchiveReason reason) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = batchLatency.get(reason).record(() -> transactionTemplate.execute(status -> {
+            Query query = entityManager.createNativeQuery(reason == ArchiveReason.INACTIVE ? INACTIVE_SQL : COMPLETED_SQL,
+                            Long.class)
+                    .setParameter("limit", properties.getBatchSize())
+                    .setParameter("now", now);
+            if (reason == ArchiveReason.COMPLETED) {
+                query.setParameter("before", now.minus(properties.getCompletedRetention()));
+            }
+            @SuppressWarnings("unchecked")
+            List<Long> result = query.getResultList();
+            return result;
+        }));
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        // Запрос нативный: Hibernate не знает, какие строки ушли, и сам их из второго уровня кэша не вытеснит.
+        // Вытесняем после коммита: до него параллельное чтение ещё видит строку и может вернуть её в кэш.
+        ids.forEach(id -> entityManager.getEntityManagerFactory().getCache().evict(Task.class, id));
+        moved.get(reason).increment(ids.size());
+        log.debug("Archived {} {} tasks", ids.size(), reason.name().toLowerCase());
+        return ids.size();
+    }
+}
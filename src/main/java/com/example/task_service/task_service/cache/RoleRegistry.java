@@ -0,0 +1,71 @@
+package com.example.task_service.task_service.cache;
+
+import com.example.task_service.task_service.entity.Role;
+import com.example.task_service.task_service.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый справочник ролей в памяти (имя -> ссылка на Role).
+ * Ролей единицы, поэтому таблица читается целиком: при старте, по расписанию и при промахе по имени.
+ * Промах перечитывает таблицу не чаще раза в miss-refresh-interval: запросы с несуществующими ролями
+ * не должны оборачиваться полным чтением roles на каждый запрос.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry {
+    private final RoleRepository roleRepository;
+
+    @Value("${role-registry.miss-refresh-interval:PT5S}")
+    private Duration missRefreshInterval = Duration.ofSeconds(5);
+
+    private volatile Map<String, Role> rolesByName = Map.of();
+    // System.nanoTime() последнего перечитывания по промаху; 0 - ещё не было
+    private final AtomicLong lastMissRefreshNanos = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${role-registry.refresh-interval:PT5M}",
+            initialDelayString = "${role-registry.refresh-interval:PT5M}")
+    public void refresh() {
+        rolesByName = roleRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Role::getName, RoleRegistry::reference));
+    }
+
+    public Optional<Role> find(String name) {
+        Role role = rolesByName.get(name);
+        if (role == null && tryAcquireMissRefresh()) {
+            // Роль могли добавить после последнего обновления
+            refresh();
+            role = rolesByName.get(name);
+        }
+        return Optional.ofNullable(role);
+    }
+
+    // Перечитать по промаху может только один поток и только по истечении интервала
+    private boolean tryAcquireMissRefresh() {
+        long now = System.nanoTime();
+        long last = lastMissRefreshNanos.get();
+        if (last != 0 && now - last < missRefreshInterval.toNanos()) {
+            return false;
+        }
+        return lastMissRefreshNanos.compareAndSet(last, now);
+    }
+
+    // Отсоединённая ссылка: для связи user_roles Hibernate нужен только id
+    private static Role reference(Role role) {
+        return Role.builder()
+                .id(role.getId())
+                .name(role.getName())
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.task_service.task_service.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.OptionalLong;
+
+/**
+ * Второй уровень кэша Hibernate на Caffeine (через JCache).
+ * Регионы создаются заранее, чтобы у каждого были свои лимиты размера и TTL и включённая статистика.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        properties.getRegions().forEach((region, settings) -> {
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, regionConfiguration(settings));
+            }
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // cache.gets{result=hit|miss}, cache.puts, cache.evictions по каждому региону
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> hibernateCacheManager.getCacheNames().forEach(region ->
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region), Tags.of("cache.layer", "hibernate-l2")));
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(SecondLevelCacheProperties.Region settings) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(settings.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(settings.getTimeToLive().toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.task_service.task_service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "l2-cache")
+public class SecondLevelCacheProperties {
+    // Имя региона (@Cache(region = ...)) -> настройки вытеснения
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.task_service.task_service.cache;
+
+import com.example.task_service.task_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Кэш username -> id активного пользователя для пути записи задач.
+ * Хранит только id: чтобы проставить внешний ключ, сущность User загружать не нужно.
+ */
+@Component
+public class UserIdCache implements MeterBinder {
+    private final UserRepository userRepository;
+    private final Cache<String, Long> idsByUsername;
+
+    public UserIdCache(UserRepository userRepository, UserIdCacheProperties properties) {
+        this.userRepository = userRepository;
+        this.idsByUsername = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    // Отсутствующий пользователь не кэшируется: он может появиться в любой момент
+    public Optional<Long> findActiveUserId(String username) {
+        return Optional.ofNullable(idsByUsername.get(username,
+                name -> userRepository.findActiveIdByUsername(name).orElse(null)));
+    }
+
+    public void evict(String username) {
+        idsByUsername.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        idsByUsername.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, idsByUsername, "user-ids");
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.task_service.task_service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "user-id-cache")
+public class UserIdCacheProperties {
+    private long maximumSize = 100_000;
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
@@ -0,0 +1,121 @@
+package com.example.task_service.task_service.concurrency;
+
+import com.example.task_service.task_service.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивный лимит одновременных вызовов сервисов (GradientLimit): когда Postgres замедляется, лимит
+ * снижается вслед за ростом латентности, и лишние запросы сразу получают 503 вместо очереди в Hikari.
+ * Вызовы LOW отсекаются раньше, чем HIGH: при перегрузке сканы списков уступают чтению одной записи.
+ * Стоит снаружи DbConcurrencyLimiter: время ожидания его слота тоже входит в измеряемую латентность.
+ * Потоковые методы (@ConcurrencyLimitExempt) не ограничиваются и не замеряются.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "adaptive-concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyLimiter {
+    // Вложенные вызовы сервисов в том же потоке считаются частью внешнего
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<>();
+
+    private final AdaptiveConcurrencyProperties properties;
+    private final GradientLimit limit;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+
+    public AdaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry,
+                               LongSupplier nanoClock) {
+        this.properties = properties;
+        this.limit = new GradientLimit(properties, nanoClock);
+        this.nanoClock = nanoClock;
+        Gauge.builder("service.concurrency.limit", limit, GradientLimit::getLimit).register(meterRegistry);
+        Gauge.builder("service.concurrency.inflight", inflight, AtomicInteger::get).register(meterRegistry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, Counter.builder("service.concurrency.rejected")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (Boolean.TRUE.equals(IN_CALL.get()) || method(joinPoint).isAnnotationPresent(ConcurrencyLimitExempt.class)) {
+            return joinPoint.proceed();
+        }
+        int inflightAtStart = acquire(priority(joinPoint));
+        IN_CALL.set(Boolean.TRUE);
+        long start = nanoClock.getAsLong();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            IN_CALL.remove();
+            limit.onSample(nanoClock.getAsLong() - start, inflightAtStart);
+            inflight.decrementAndGet();
+        }
+    }
+
+    // Доля текущего лимита, занятая вызовами: по ней фоновые работы (TaskArchiver) уступают живому трафику
+    public double utilization() {
+        return (double) inflight.get() / limit.getLimit();
+    }
+
+    int getLimit() {
+        return limit.getLimit();
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+
+    private int acquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) (limit.getLimit() * share(priority)));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                rejected.get(priority).increment();
+                throw new ServiceOverloadedException("Service is overloaded, try again later", properties.getRetryAfter());
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private double share(RequestPriority priority) {
+        return switch (priority) {
+            case HIGH -> 1.0;
+            case NORMAL -> properties.getNormalPriorityShare();
+            case LOW -> properties.getLowPriorityShare();
+        };
+    }
+
+    private static RequestPriority priority(ProceedingJoinPoint joinPoint) {
+        ConcurrencyPriority annotation = method(joinPoint).getAnnotation(ConcurrencyPriority.class);
+        return annotation != null ? annotation.value() : RequestPriority.NORMAL;
+    }
+
+    private static Method method(ProceedingJoinPoint joinPoint) {
+        return ((MethodSignature) joinPoint.getSignature()).getMethod();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.task_service.task_service.concurrency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "adaptive-concurrency")
+public class AdaptiveConcurrencyProperties {
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+    // Во сколько раз латентность окна может превысить долгосрочную, прежде чем лимит начнёт снижаться
+    private double tolerance = 1.5;
+    // Доля нового значения при сглаживании лимита
+    private double smoothing = 0.2;
+    // Окно замера: не меньше window-size вызовов и не короче min-window-time
+    private int windowSize = 10;
+    private Duration minWindowTime = Duration.ofMillis(250);
+    // Число окон в экспоненциальном среднем долгосрочной латентности
+    private int longWindow = 100;
+    // Доля лимита, доступная вызовам с приоритетом LOW и NORMAL
+    private double lowPriorityShare = 0.5;
+    private double normalPriorityShare = 0.9;
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,16 @@
+package com.example.task_service.task_service.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Метод сервиса вне AdaptiveConcurrencyLimiter: потоковая выдача длится, пока клиент читает ответ,
+ * и её время - это скорость клиента, а не базы. Такой замер занижал бы лимит для всех остальных вызовов.
+ * Соединение метод всё равно держит, поэтому DbConcurrencyLimiter его по-прежнему ограничивает.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimitExempt {
+}
@@ -0,0 +1,15 @@
+package com.example.task_service.task_service.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Приоритет метода сервиса для AdaptiveConcurrencyLimiter; методы без аннотации - NORMAL.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyPriority {
+    RequestPriority value();
+}
@@ -0,0 +1,113 @@
+package com.example.task_service.task_service.concurrency;
+
+import com.example.task_service.task_service.datasource.ReadReplicaProperties;
+import com.example.task_service.task_service.datasource.ReplicaRoutingDataSource;
+import com.example.task_service.task_service.exception.DbConcurrencyLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает число одновременных вызовов сервисов, когда запросы обслуживаются виртуальными потоками.
+ * Пул Tomcat больше не сдерживает конкуренцию, и без лимита тысячи потоков встают в очередь Hikari
+ * до connection-timeout. Здесь лишние запросы ждут недолго и получают 503.
+ * Аспект стоит раньше транзакций, поэтому соединение берётся только после получения слота,
+ * и сразу после AdaptiveConcurrencyLimiter.
+ * Слоты считаются по пулам: read-only транзакции при включённых репликах берут соединения из пулов реплик
+ * и ограничиваются их суммарным размером, остальные - пулом primary за вычетом соединений фоновых задач
+ * (архиватор, outbox, сверка счётчиков, лента событий), которые идут в primary мимо сервисов.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DbConcurrencyLimiter {
+    // Вложенные вызовы сервисов в том же потоке не должны занимать второй слот
+    private static final ThreadLocal<Boolean> HOLDS_PERMIT = new ThreadLocal<>();
+
+    private final Semaphore primaryPermits;
+    // null - реплик нет, чтения делят слоты primary
+    private final Semaphore replicaPermits;
+    private final long acquireTimeoutNanos;
+    private final Map<Method, Boolean> readOnlyMethods = new ConcurrentHashMap<>();
+
+    public DbConcurrencyLimiter(DbConcurrencyProperties properties,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                ReadReplicaProperties replicaProperties) {
+        int maxConcurrent = properties.getMaxConcurrent() != null
+                ? properties.getMaxConcurrent() : Math.max(1, poolSize - properties.getReservedConnections());
+        this.primaryPermits = new Semaphore(maxConcurrent, true);
+        if (replicaProperties.isEnabled() && !replicaProperties.getUrls().isEmpty()) {
+            int maxConcurrentReads = properties.getMaxConcurrentReads() != null ? properties.getMaxConcurrentReads()
+                    : replicaProperties.getMaximumPoolSize() * replicaProperties.getUrls().size();
+            this.replicaPermits = new Semaphore(maxConcurrentReads, true);
+            log.info("Virtual threads enabled, service calls limited to {} concurrent on primary and {} on replicas",
+                    maxConcurrent, maxConcurrentReads);
+        } else {
+            this.replicaPermits = null;
+            log.info("Virtual threads enabled, service calls limited to {} concurrent", maxConcurrent);
+        }
+        this.acquireTimeoutNanos = properties.getAcquireTimeout().toNanos();
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (Boolean.TRUE.equals(HOLDS_PERMIT.get())) {
+            return joinPoint.proceed();
+        }
+        Semaphore permits = permitsFor(joinPoint);
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new DbConcurrencyLimitExceededException("Too many concurrent requests, try again later");
+        }
+        HOLDS_PERMIT.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            HOLDS_PERMIT.remove();
+            permits.release();
+        }
+    }
+
+    int availablePermits() {
+        return primaryPermits.availablePermits();
+    }
+
+    int availableReplicaPermits() {
+        return replicaPermits != null ? replicaPermits.availablePermits() : 0;
+    }
+
+    // Тот же выбор, что сделает ReplicaRoutingDataSource: read-only транзакция без read-your-writes - на реплику
+    private Semaphore permitsFor(ProceedingJoinPoint joinPoint) {
+        if (replicaPermits == null || ReplicaRoutingDataSource.isPinnedToPrimary()) {
+            return primaryPermits;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        boolean readOnly = readOnlyMethods.computeIfAbsent(method, m -> isReadOnly(m, joinPoint.getTarget().getClass()));
+        return readOnly ? replicaPermits : primaryPermits;
+    }
+
+    private static boolean isReadOnly(Method method, Class<?> targetClass) {
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+        if (transactional == null) {
+            transactional = AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class);
+        }
+        return transactional != null && transactional.readOnly();
+    }
+}
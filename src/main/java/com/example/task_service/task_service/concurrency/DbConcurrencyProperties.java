@@ -0,0 +1,22 @@
+package com.example.task_service.task_service.concurrency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "db-concurrency")
+public class DbConcurrencyProperties {
+    // Сколько вызовов сервисов одновременно допускается к primary; по умолчанию - размер пула Hikari
+    // за вычетом reserved-connections
+    private Integer maxConcurrent;
+    // Соединения primary, которые фоновые задачи (@Scheduled на виртуальных потоках) берут мимо лимита
+    private int reservedConnections = 4;
+    // Сколько read-only вызовов одновременно допускается к репликам; по умолчанию - сумма их пулов
+    private Integer maxConcurrentReads;
+    // Сколько ждать свободного слота, прежде чем ответить 503
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+}
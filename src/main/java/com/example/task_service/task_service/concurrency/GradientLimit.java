@@ -0,0 +1,90 @@
+package com.example.task_service.task_service.concurrency;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Лимит одновременных вызовов по градиенту латентности (как Gradient2 в Netflix concurrency-limits).
+ * Средняя латентность окна сравнивается с долгосрочной: пока она в пределах tolerance, лимит растёт
+ * на sqrt(limit) за окно; когда запросы начинают ждать (пул Hikari, блокировки в Postgres), лимит снижается
+ * пропорционально росту латентности, но не больше чем вдвое за окно.
+ * <p>
+ * onSample вызывается в finally каждого вызова сервиса, поэтому без монитора: замеры копятся в LongAdder,
+ * а окно закрывает один поток, выигравший CAS на {@code closing}.
+ */
+class GradientLimit {
+    private final AdaptiveConcurrencyProperties properties;
+    private final LongSupplier nanoClock;
+    private final double longRttFactor;
+
+    private volatile double limit;
+    // Меняется только владельцем closing; видимость между владельцами даёт сам CAS
+    private double longRttNanos;
+
+    // Текущее окно; замеры, пришедшие пока окно закрывается, попадают в следующее
+    private volatile long windowStart;
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowRttSum = new LongAdder();
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    GradientLimit(AdaptiveConcurrencyProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.longRttFactor = 2.0 / (properties.getLongWindow() + 1);
+        this.limit = properties.getInitialLimit();
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    void onSample(long rttNanos, int inflight) {
+        windowSamples.increment();
+        windowRttSum.add(Math.max(1, rttNanos));
+        windowMaxInflight.accumulateAndGet(inflight, Math::max);
+        long now = nanoClock.getAsLong();
+        if (!windowComplete(now) || !closing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Предыдущий владелец мог закрыть окно между проверкой и CAS
+            if (!windowComplete(now)) {
+                return;
+            }
+            windowStart = now;
+            long samples = windowSamples.sumThenReset();
+            long rttSum = windowRttSum.sumThenReset();
+            int maxInflight = windowMaxInflight.getAndSet(0);
+            if (samples > 0) {
+                update((double) rttSum / samples, maxInflight);
+            }
+        } finally {
+            closing.set(false);
+        }
+    }
+
+    private boolean windowComplete(long now) {
+        return windowSamples.sum() >= properties.getWindowSize()
+                && now - windowStart >= properties.getMinWindowTime().toNanos();
+    }
+
+    private void update(double shortRtt, int maxInflight) {
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos * (1 - longRttFactor) + shortRtt * longRttFactor;
+        // После долгой перегрузки среднее завышено; пока латентность заметно ниже, оно быстрее возвращается вниз
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        // Нагрузка не доходит до лимита - оснований его менять нет
+        if (maxInflight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRttNanos / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+}
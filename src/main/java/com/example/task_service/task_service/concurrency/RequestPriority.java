@@ -0,0 +1,11 @@
+package com.example.task_service.task_service.concurrency;
+
+/**
+ * Очерёдность сброса нагрузки: при нехватке лимита первыми отказывают LOW (сканы списков, пакетные операции),
+ * HIGH (чтение одной записи и версии для ETag) получают весь лимит.
+ */
+public enum RequestPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
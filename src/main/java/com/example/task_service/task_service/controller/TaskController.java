@@ -1,13 +1,34 @@
 package com.example.task_service.task_service.controller;
 
+import com.example.task_service.task_service.dto.TaskBatchItemResultDTO;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskBulkResultDTO;
+import com.example.task_service.task_service.dto.TaskCountsDTO;
 import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.etag.ETags;
+import com.example.task_service.task_service.feed.TaskEventHub;
+import com.example.task_service.task_service.pagination.CursorResponses;
+import com.example.task_service.task_service.ratelimit.ClientRateLimit;
+import com.example.task_service.task_service.service.ConditionalReadService;
 import com.example.task_service.task_service.service.TaskService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,34 +36,159 @@ import java.util.List;
 @RequestMapping("/api/v1")
 public class TaskController {
     private final TaskService taskService;
+    private final ConditionalReadService conditionalReadService;
+    private final ObjectMapper objectMapper;
+    private final TaskEventHub taskEventHub;
 
     @GetMapping("/tasks")
-    @RateLimiter(name = "taskServiceRateLimiter")
-    public List<TaskDTO> getAllTasks(@PageableDefault(size = 10, sort = "id") Pageable pageable) {
-        return taskService.getAllTasks(pageable).getContent();
+    @ClientRateLimit("task-reads")
+    public ResponseEntity<List<TaskDTO>> getAllTasks(@RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @PageableDefault(size = 10, sort = "id") Pageable pageable,
+                                                     WebRequest request) {
+        // 304 по версии коллекции; при 200 checkNotModified сам выставляет заголовок ETag
+        return conditionalReadService.readList(
+                () -> taskService.getTasksVersion().orElse(null),
+                version -> request.checkNotModified(ETags.weak(version, "tasks", after, limit, pageable)),
+                () -> after == null && limit == null
+                        // Legacy offset-режим (?page=&size=), оставлен для старых клиентов
+                        ? ResponseEntity.ok(taskService.getAllTasks(pageable).getContent())
+                        : CursorResponses.of(taskService.getTasksAfter(after, limit)));
+    }
+
+    @GetMapping("/tasks/search")
+    @ClientRateLimit("task-search")
+    public ResponseEntity<List<TaskDTO>> searchTasks(@RequestParam String q,
+                                                     @RequestParam(required = false) String username,
+                                                     @RequestParam(defaultValue = "true") boolean active,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) Integer limit) {
+        return CursorResponses.of(taskService.searchTasks(q, username, active, after, limit));
     }
 
     @GetMapping("/tasks/{id}")
-    public TaskDTO getTaskById(@PathVariable Long id) {
-        return taskService.getTaskById(id);
+    @ClientRateLimit("task-reads")
+    public ResponseEntity<TaskDTO> getTaskById(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "false") boolean includeArchived,
+                                               WebRequest request) {
+        LocalDateTime version = taskService.getTaskVersion(id, includeArchived)
+                .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
+        MediaType representation = ETags.representation(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(ETags.strong(id, version, representation))) {
+            return null;
+        }
+        // ETag по загруженной задаче: она могла измениться после запроса версии
+        TaskDTO task = taskService.getTaskById(id, includeArchived);
+        return ResponseEntity.ok().eTag(ETags.strong(task, representation)).body(task);
     }
 
     @PostMapping("/task")
+    @ClientRateLimit("task-writes")
     public TaskDTO createTask(@RequestBody TaskDTO taskDTO) {
         return taskService.createTask(taskDTO);
     }
 
+    @PostMapping("/tasks/batch")
+    @ClientRateLimit("task-bulk")
+    public List<TaskBatchItemResultDTO> createTasks(@RequestBody List<TaskDTO> taskDTOs) {
+        return taskService.createTasks(taskDTOs);
+    }
+
+    @PostMapping("/tasks/bulk/complete")
+    @ClientRateLimit("task-bulk")
+    public TaskBulkResultDTO completeTasks(@RequestBody TaskBulkRequestDTO request) {
+        return taskService.setCompleted(request, true);
+    }
+
+    @PostMapping("/tasks/bulk/incomplete")
+    @ClientRateLimit("task-bulk")
+    public TaskBulkResultDTO reopenTasks(@RequestBody TaskBulkRequestDTO request) {
+        return taskService.setCompleted(request, false);
+    }
+
+    @PostMapping("/tasks/bulk/delete")
+    @ClientRateLimit("task-bulk")
+    public TaskBulkResultDTO deleteTasks(@RequestBody TaskBulkRequestDTO request) {
+        return taskService.deleteTasks(request);
+    }
+
     @GetMapping("/user/{username}")
-    public List<TaskDTO> getTasksByUser(@PathVariable String username) {
-        return taskService.getTasksByUsername(username);
+    @ClientRateLimit("task-reads")
+    public ResponseEntity<List<TaskDTO>> getTasksByUser(@PathVariable String username,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(defaultValue = "false") boolean includeArchived,
+                                                        WebRequest request) {
+        return conditionalReadService.readList(
+                () -> taskService.getTasksVersionByUsername(username, includeArchived).orElse(null),
+                version -> request.checkNotModified(ETags.weak(version, "user-tasks", username, after, limit, includeArchived)),
+                () -> after == null && limit == null
+                        ? ResponseEntity.ok(taskService.getTasksByUsername(username, includeArchived))
+                        : CursorResponses.of(taskService.getTasksByUsernameAfter(username, after, limit, includeArchived)));
+    }
+
+    // Сколько у пользователя задач всего, открытых и завершённых - без выгрузки списка
+    @GetMapping("/user/{username}/task-counts")
+    @ClientRateLimit("task-reads")
+    public TaskCountsDTO getTaskCounts(@PathVariable String username) {
+        return taskService.getTaskCounts(username);
+    }
+
+    // Потоковая выдача всех задач пользователя: одна задача на строку (NDJSON)
+    @GetMapping(value = "/user/{username}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ClientRateLimit("task-reads")
+    public StreamingResponseBody streamTasksByUserAsNdjson(@PathVariable String username) {
+        ObjectWriter writer = objectMapper.writerFor(TaskDTO.class);
+        return out -> taskService.streamTasksByUsername(username, task -> {
+            try {
+                out.write(writer.writeValueAsBytes(task));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Потоковая выдача всех задач пользователя одним JSON-массивом
+    @GetMapping(value = "/user/{username}/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ClientRateLimit("task-reads")
+    public StreamingResponseBody streamTasksByUserAsJsonArray(@PathVariable String username) {
+        return out -> {
+            JsonGenerator generator = objectMapper.createGenerator(out);
+            // Выходной поток закрывает сам Spring
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            taskService.streamTasksByUsername(username, task -> {
+                try {
+                    generator.writeObject(task);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.close();
+        };
+    }
+
+    // Лента изменений задач пользователя (SSE): после переподключения досылает пропущенное по Last-Event-ID
+    @GetMapping(value = "/user/{username}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(@PathVariable String username,
+                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return taskEventHub.subscribe(username, lastEventId);
     }
 
     @PutMapping("/{id}")
-    public TaskDTO updateTask(@PathVariable Long id, @RequestBody TaskDTO taskDTO) {
-        return taskService.updateTask(id, taskDTO);
+    @ClientRateLimit("task-writes")
+    public ResponseEntity<TaskDTO> updateTask(@PathVariable Long id,
+                                              @RequestBody TaskDTO taskDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        TaskDTO updated = taskService.updateTask(id, taskDTO, ifMatch);
+        return ResponseEntity.ok().eTag(ETags.strong(updated, ETags.representation(accept))).body(updated);
     }
 
     @DeleteMapping("/task/{id}")
+    @ClientRateLimit("task-writes")
     public void deleteTask(@PathVariable Long id) {
         taskService.deleteTask(id);
     }
@@ -1,6 +1,9 @@
 package com.example.task_service.task_service.controller;
 
 import com.example.task_service.task_service.dto.UserDTO;
+import com.example.task_service.task_service.etag.ETags;
+import com.example.task_service.task_service.pagination.CursorResponses;
+import com.example.task_service.task_service.service.ConditionalReadService;
 import com.example.task_service.task_service.service.UserService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -8,6 +11,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Set;
@@ -17,15 +21,28 @@ import java.util.Set;
 @AllArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final ConditionalReadService conditionalReadService;
 
     @GetMapping("/users")
-    public List<UserDTO> getUsers(@PageableDefault(size = 10, sort = "id") Pageable pageable) {
-        return userService.getAllUsers(pageable).getContent();
+    public ResponseEntity<List<UserDTO>> getUsers(@RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @PageableDefault(size = 10, sort = "id") Pageable pageable,
+                                                  WebRequest request) {
+        return conditionalReadService.readList(
+                () -> userService.getUsersVersion().orElse(null),
+                version -> request.checkNotModified(ETags.weak(version, "users", after, limit, pageable)),
+                () -> after == null && limit == null
+                        // Legacy offset-режим (?page=&size=), оставлен для старых клиентов
+                        ? ResponseEntity.ok(userService.getAllUsers(pageable).getContent())
+                        : CursorResponses.of(userService.getUsersAfter(after, limit)));
     }
 
     @GetMapping("/users/{username}")
-    public List<UserDTO> findByUsername(@PathVariable String username) {
-        return userService.findByUsername(username);
+    public List<UserDTO> findByUsername(@PathVariable String username, WebRequest request) {
+        return conditionalReadService.readOne(
+                () -> userService.getUserVersion(username).orElse(null),
+                version -> request.checkNotModified(ETags.weak(version, "user", username)),
+                () -> userService.findByUsername(username));
     }
 
 
@@ -0,0 +1,35 @@
+package com.example.task_service.task_service.counters;
+
+/**
+ * Изменение счётчиков задач пользователя. Задача входит в total всегда, в active - пока не удалена мягко,
+ * в open или completed - только активная.
+ */
+public record TaskCountDelta(long total, long open, long completed, long active) {
+    public static final TaskCountDelta ZERO = new TaskCountDelta(0, 0, 0, 0);
+
+    // Вклад одной задачи в этом состоянии
+    public static TaskCountDelta of(boolean active, boolean completed) {
+        return new TaskCountDelta(1, active && !completed ? 1 : 0, active && completed ? 1 : 0, active ? 1 : 0);
+    }
+
+    public static TaskCountDelta change(boolean wasActive, boolean wasCompleted, boolean active, boolean completed) {
+        return of(active, completed).minus(of(wasActive, wasCompleted));
+    }
+
+    public TaskCountDelta plus(TaskCountDelta other) {
+        return new TaskCountDelta(total + other.total, open + other.open,
+                completed + other.completed, active + other.active);
+    }
+
+    public TaskCountDelta minus(TaskCountDelta other) {
+        return plus(other.times(-1));
+    }
+
+    public TaskCountDelta times(long factor) {
+        return new TaskCountDelta(total * factor, open * factor, completed * factor, active * factor);
+    }
+
+    public boolean isZero() {
+        return equals(ZERO);
+    }
+}
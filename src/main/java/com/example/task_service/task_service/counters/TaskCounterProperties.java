@@ -0,0 +1,19 @@
+package com.example.task_service.task_service.counters;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "task.counters")
+public class TaskCounterProperties {
+    private boolean reconcileEnabled = true;
+
+    private Duration reconcileInterval = Duration.ofHours(1);
+
+    // Пользователей на одну транзакцию пересчёта
+    private int reconcileBatchSize = 200;
+}
@@ -0,0 +1,123 @@
+package com.example.task_service.task_service.counters;
+
+import com.example.task_service.task_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Периодический пересчёт user_task_counters по task и task_archive: исправляет расхождения инкрементальных
+ * счётчиков. Переписываются только строки, которые действительно разошлись.
+ * Пачка пересчитывается в REPEATABLE READ: если счётчик пользователя изменила параллельная запись, снимок
+ * пересчёта уже устарел, и Postgres отменяет пачку вместо того, чтобы затереть свежий инкремент старым итогом.
+ * Такая пачка пропускается до следующего прохода.
+ */
+@Slf4j
+@Component
+public class TaskCounterReconciler {
+    private static final String RECONCILE_SQL = "INSERT INTO " + TaskCounters.TABLE
+            + " (user_id, total_count, open_count, completed_count, active_count, updated_at) "
+            + "SELECT u.id, count(t.user_id), "
+            + "count(*) FILTER (WHERE t.active AND NOT t.completed), "
+            + "count(*) FILTER (WHERE t.active AND t.completed), "
+            + "count(*) FILTER (WHERE t.active), :now "
+            + "FROM users u LEFT JOIN ("
+            + "SELECT user_id, active, completed FROM task "
+            + "UNION ALL SELECT user_id, active, completed FROM task_archive"
+            + ") t ON t.user_id = u.id "
+            + "WHERE u.id IN (:userIds) "
+            + "GROUP BY u.id "
+            // Пользователю без задач строка не нужна: чтение отдаёт нули
+            + "HAVING count(t.user_id) > 0 OR u.id IN (SELECT user_id FROM " + TaskCounters.TABLE + ") "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "total_count = EXCLUDED.total_count, "
+            + "open_count = EXCLUDED.open_count, "
+            + "completed_count = EXCLUDED.completed_count, "
+            + "active_count = EXCLUDED.active_count, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE (" + TaskCounters.TABLE + ".total_count, " + TaskCounters.TABLE + ".open_count, "
+            + TaskCounters.TABLE + ".completed_count, " + TaskCounters.TABLE + ".active_count) "
+            + "IS DISTINCT FROM (EXCLUDED.total_count, EXCLUDED.open_count, EXCLUDED.completed_count, EXCLUDED.active_count) "
+            + "RETURNING user_id";
+
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final TaskCounterProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter corrected;
+    private final Counter skipped;
+    private final Timer duration;
+
+    public TaskCounterReconciler(EntityManager entityManager,
+                                 UserRepository userRepository,
+                                 TaskCounterProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // Сколько пользователей получили исправленные счётчики: ненулевое значение - признак пропущенного инкремента
+        this.corrected = Counter.builder("task.counters.reconciled").register(meterRegistry);
+        this.skipped = Counter.builder("task.counters.reconcile.skipped").register(meterRegistry);
+        this.duration = Timer.builder("task.counters.reconcile").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${task.counters.reconcile-interval:PT1H}",
+            initialDelayString = "${task.counters.reconcile-interval:PT1H}")
+    public void reconcile() {
+        if (properties.isReconcileEnabled()) {
+            duration.record(this::reconcileAll);
+        }
+    }
+
+    void reconcileAll() {
+        long afterId = 0L;
+        int total = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findIdsAfter(afterId, Limit.of(properties.getReconcileBatchSize()));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            try {
+                total += reconcileBatch(userIds);
+            } catch (RuntimeException e) {
+                skipped.increment();
+                log.debug("Task counters for users {}..{} changed during reconciliation, skipped: {}",
+                        userIds.get(0), userIds.get(userIds.size() - 1), e.getMessage());
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        } while (userIds.size() == properties.getReconcileBatchSize());
+        if (total > 0) {
+            log.info("Reconciled task counters of {} users", total);
+        }
+    }
+
+    int reconcileBatch(List<Long> userIds) {
+        List<?> fixed = transactionTemplate.execute(status -> {
+            NativeQuery<?> query = entityManager.createNativeQuery(RECONCILE_SQL).unwrap(NativeQuery.class);
+            return query.addSynchronizedQuerySpace(TaskCounters.TABLE)
+                    .setParameter("userIds", userIds)
+                    .setParameter("now", LocalDateTime.now())
+                    .getResultList();
+        });
+        int count = fixed == null ? 0 : fixed.size();
+        corrected.increment(count);
+        return count;
+    }
+}
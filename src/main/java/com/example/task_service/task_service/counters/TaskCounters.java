@@ -0,0 +1,58 @@
+package com.example.task_service.task_service.counters;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Инкрементальное обновление user_task_counters. Вызывается только внутри транзакции изменения задач:
+ * задача и счётчики фиксируются вместе. Расхождения (например, строки, вставленные параллельно с массовой
+ * операцией по пользователю) исправляет TaskCounterReconciler.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskCounters {
+    static final String TABLE = "user_task_counters";
+
+    private static final String APPLY_DELTA_SQL = "INSERT INTO " + TABLE
+            + " (user_id, total_count, open_count, completed_count, active_count, updated_at) "
+            + "VALUES (:userId, :total, :open, :completed, :active, :now) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "total_count = " + TABLE + ".total_count + EXCLUDED.total_count, "
+            + "open_count = " + TABLE + ".open_count + EXCLUDED.open_count, "
+            + "completed_count = " + TABLE + ".completed_count + EXCLUDED.completed_count, "
+            + "active_count = " + TABLE + ".active_count + EXCLUDED.active_count, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private final EntityManager entityManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, TaskCountDelta delta) {
+        if (delta.isZero()) {
+            return;
+        }
+        NativeQuery<?> query = entityManager.createNativeQuery(APPLY_DELTA_SQL).unwrap(NativeQuery.class);
+        // Без query space Hibernate после нативного DML сбросил бы весь second-level cache
+        query.addSynchronizedQuerySpace(TABLE)
+                .setParameter("userId", userId)
+                .setParameter("total", delta.total())
+                .setParameter("open", delta.open())
+                .setParameter("completed", delta.completed())
+                .setParameter("active", delta.active())
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    // Строки счётчиков блокируются в порядке user_id: параллельные массовые операции не взаимоблокируются
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Map<Long, TaskCountDelta> deltas) {
+        new TreeMap<>(deltas).forEach(this::record);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.task_service.task_service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Пул одной реплики и её состояние по последней проверке ReplicaHealthChecker.
+ * До первой успешной проверки реплика считается недоступной, и чтения идут на primary.
+ */
+@Getter
+@Setter
+public class ReadReplica {
+    private final String name;
+    private final HikariDataSource dataSource;
+    private volatile boolean healthy;
+    private volatile double lagSeconds;
+    private volatile long lagBytes;
+
+    public ReadReplica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+}
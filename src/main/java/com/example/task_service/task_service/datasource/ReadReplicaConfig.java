@@ -0,0 +1,80 @@
+package com.example.task_service.task_service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение с реплик: транзакции @Transactional(readOnly = true) получают соединение из ReplicaRoutingDataSource,
+ * остальные - из пула primary. LazyConnectionDataSourceProxy откладывает выбор пула до первого запроса
+ * к БД, когда признак read-only транзакции уже выставлен.
+ * Без read-replicas.enabled конфигурация не подключается, и DataSource создаёт Spring Boot как обычно.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Пулы реплик стартуют при первом запросе соединения: недоступная реплика не мешает запуску сервиса
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ReadReplicaProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        List<ReadReplica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getUrls().size(); i++) {
+            String name = "replica-" + i;
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(properties.getUrls().get(i))
+                    .username(properties.getUsername() != null
+                            ? properties.getUsername() : dataSourceProperties.determineUsername())
+                    .password(properties.getPassword() != null
+                            ? properties.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            pool.setPoolName(name);
+            pool.setMaximumPoolSize(properties.getMaximumPoolSize());
+            pool.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReadReplica(name, pool));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                     ReplicaRoutingDataSource replicaRoutingDataSource,
+                                                     ReadReplicaProperties properties,
+                                                     MeterRegistry meterRegistry) {
+        return new ReplicaHealthChecker(primaryDataSource, replicaRoutingDataSource, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.task_service.task_service.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "read-replicas")
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    // JDBC URL реплик; учётные данные по умолчанию - как у spring.datasource
+    private List<String> urls = new ArrayList<>();
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    // Реплика, отставшая больше чем на max-lag, выводится из ротации до следующей проверки
+    private Duration maxLag = Duration.ofSeconds(10);
+    // Сколько после записи клиент читает с primary (read-your-writes)
+    private Duration stickyWindow = Duration.ofSeconds(5);
+    // Имя cookie и заголовка с концом окна read-your-writes: ответ на запись выдаёт, клиент возвращает
+    private String stickyToken = "X-Primary-Until";
+    // Ключ HMAC-подписи токена; общий для всех экземпляров. Пустой - случайный ключ на экземпляр
+    private String stickyTokenSecret;
+}
@@ -0,0 +1,19 @@
+package com.example.task_service.task_service.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaWebConfig implements WebMvcConfigurer {
+    private final ReadReplicaProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(properties)).addPathPatterns("/api/**");
+    }
+}
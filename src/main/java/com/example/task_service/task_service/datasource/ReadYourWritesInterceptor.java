@@ -0,0 +1,149 @@
+package com.example.task_service.task_service.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Read-your-writes: после запроса на запись клиент в течение sticky-window читает с primary, чтобы не увидеть
+ * на реплике состояние до своей же записи. Окно отсчитывается от начала записи - ответ на неё клиент может
+ * получить раньше, чем отработает afterCompletion.
+ * Окно несёт сам клиент: ответ на запись отдаёт токен sticky-token (cookie и заголовок) с моментом его конца,
+ * и клиент возвращает его cookie или заголовком - так окно действует на любом экземпляре сервиса.
+ * Токен подписан HMAC-SHA256 ключом sticky-token-secret: иначе любой клиент мог бы сам выписать себе окно
+ * и перевести свои чтения на primary. Без заданного ключа он генерируется при старте, и токен принимает
+ * только выдавший его экземпляр.
+ * Аутентифицированный принципал вдобавок запоминается в памяти экземпляра - для клиентов, не вернувших токен;
+ * на других экземплярах это запоминание не действует.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final ReadReplicaProperties properties;
+    private final Clock clock;
+    private final SecretKeySpec signingKey;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(ReadReplicaProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    ReadYourWritesInterceptor(ReadReplicaProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.signingKey = new SecretKeySpec(secret(properties), HMAC_ALGORITHM);
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStickyWindow())
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Principal principal = request.getUserPrincipal();
+        long now = clock.millis();
+        if (!READ_METHODS.contains(request.getMethod())) {
+            issueToken(response, now + properties.getStickyWindow().toMillis());
+            if (principal != null) {
+                recentWriters.put(principal.getName(), Boolean.TRUE);
+            }
+            ReplicaRoutingDataSource.pinToPrimary();
+        } else if (hasValidToken(request, now)
+                || (principal != null && recentWriters.getIfPresent(principal.getName()) != null)) {
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    // Асинхронная часть запроса выполняется в другом потоке; этот поток возвращается в пул
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    // Ответ ещё не отправлен: preHandle идёт до контроллера
+    private void issueToken(HttpServletResponse response, long until) {
+        String value = until + "." + sign(Long.toString(until));
+        ResponseCookie cookie = ResponseCookie.from(properties.getStickyToken(), value)
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(properties.getStickyWindow())
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        response.setHeader(properties.getStickyToken(), value);
+    }
+
+    // Токен с чужой подписью или с концом окна дальше sticky-window от текущего момента выдан не нами
+    private boolean hasValidToken(HttpServletRequest request, long now) {
+        String value = request.getHeader(properties.getStickyToken());
+        if (!StringUtils.hasText(value)) {
+            Cookie cookie = WebUtils.getCookie(request, properties.getStickyToken());
+            value = cookie != null ? cookie.getValue() : null;
+        }
+        if (!StringUtils.hasText(value)) {
+            return false;
+        }
+        value = value.trim();
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String untilPart = value.substring(0, dot);
+        byte[] expected = sign(untilPart).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII))) {
+            return false;
+        }
+        try {
+            long until = Long.parseLong(untilPart);
+            return until > now && until - now <= properties.getStickyWindow().toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Mac не потокобезопасен, а ThreadLocal на виртуальных потоках не переиспользуется - экземпляр на вызов
+    private String sign(String until) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal(until.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен", e);
+        }
+    }
+
+    private static byte[] secret(ReadReplicaProperties properties) {
+        if (StringUtils.hasText(properties.getStickyTokenSecret())) {
+            return properties.getStickyTokenSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
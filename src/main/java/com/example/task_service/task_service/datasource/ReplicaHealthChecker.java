@@ -0,0 +1,101 @@
+package com.example.task_service.task_service.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Проверяет реплики по расписанию и публикует отставание. Отставание в байтах - разница между текущим LSN
+ * primary и последним применённым на реплике; в секундах - возраст последней применённой транзакции,
+ * но только пока реплика действительно не догнала primary: при простое без записей этот возраст растёт
+ * сам по себе.
+ */
+@Slf4j
+public class ReplicaHealthChecker {
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    private static final String REPLICA_LAG_SQL = "SELECT pg_is_in_recovery(), "
+            + "COALESCE(pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn()), 0), "
+            + "COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)";
+    private static final int QUERY_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final ReplicaRoutingDataSource routing;
+    private final ReadReplicaProperties properties;
+
+    public ReplicaHealthChecker(DataSource primary, ReplicaRoutingDataSource routing, ReadReplicaProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.routing = routing;
+        this.properties = properties;
+        for (ReadReplica replica : routing.getReplicas()) {
+            Gauge.builder("datasource.replica.lag", replica, ReadReplica::getLagSeconds)
+                    .tag("replica", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag.bytes", replica, ReadReplica::getLagBytes)
+                    .tag("replica", replica.getName())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${read-replicas.health-check-interval:5s}")
+    public void check() {
+        String primaryLsn = primaryLsn();
+        for (ReadReplica replica : routing.getReplicas()) {
+            check(replica, primaryLsn);
+        }
+    }
+
+    private void check(ReadReplica replica, String primaryLsn) {
+        try (Connection connection = replica.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(REPLICA_LAG_SQL)) {
+            statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            statement.setString(1, primaryLsn);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                boolean inRecovery = rs.getBoolean(1);
+                long lagBytes = Math.max(0, rs.getLong(2));
+                double lagSeconds = inRecovery && lagBytes > 0 ? rs.getDouble(3) : 0;
+                replica.setLagBytes(lagBytes);
+                replica.setLagSeconds(lagSeconds);
+                boolean healthy = lagSeconds <= properties.getMaxLag().toMillis() / 1000.0;
+                if (healthy != replica.isHealthy()) {
+                    log.info("Replica {} {} rotation (lag {} s, {} bytes)", replica.getName(),
+                            healthy ? "returned to" : "taken out of", lagSeconds, lagBytes);
+                }
+                replica.setHealthy(healthy);
+            }
+        } catch (SQLException ex) {
+            if (replica.isHealthy()) {
+                log.warn("Replica {} health check failed: {}", replica.getName(), ex.getMessage());
+            }
+            replica.setHealthy(false);
+        }
+    }
+
+    // Без LSN primary отставание в байтах неизвестно; реплика оценивается только по доступности
+    private String primaryLsn() {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(PRIMARY_LSN_SQL)) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException ex) {
+            log.warn("Cannot read primary WAL position: {}", ex.getMessage());
+            return null;
+        }
+    }
+}
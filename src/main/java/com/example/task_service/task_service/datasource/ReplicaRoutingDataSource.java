@@ -0,0 +1,75 @@
+package com.example.task_service.task_service.datasource;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений для read-only транзакций (LazyConnectionDataSourceProxy#setReadOnlyDataSource):
+ * реплики по кругу, пропуская недоступные и отставшие. Если реплика не отдала соединение, она выводится
+ * из ротации до следующей проверки, а запрос уходит на следующую; в крайнем случае - на primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    // Клиент недавно писал: его чтения в этом потоке идут на primary
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    @Getter
+    private final List<ReadReplica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<ReadReplica> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isPinnedToPrimary() && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                ReadReplica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.isHealthy()) {
+                    continue;
+                }
+                try {
+                    return replica.getDataSource().getConnection();
+                } catch (SQLException ex) {
+                    log.warn("Replica {} is unavailable, taking it out of rotation: {}", replica.getName(), ex.getMessage());
+                    replica.setHealthy(false);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // Явные учётные данные относятся к primary: у реплик свои пулы со своими, поэтому такое соединение - с primary
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.getDataSource().close());
+    }
+}
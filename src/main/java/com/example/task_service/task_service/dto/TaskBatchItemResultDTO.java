@@ -0,0 +1,31 @@
+package com.example.task_service.task_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Результат по одному элементу пакетного создания задач; index - позиция в исходном запросе
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskBatchItemResultDTO {
+    private int index;
+    private Status status;
+    private TaskDTO task;
+    private String error;
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    public static TaskBatchItemResultDTO created(int index, TaskDTO task) {
+        return new TaskBatchItemResultDTO(index, Status.CREATED, task, null);
+    }
+
+    public static TaskBatchItemResultDTO rejected(int index, String error) {
+        return new TaskBatchItemResultDTO(index, Status.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.task_service.task_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Цель массовой операции: либо список id задач, либо все задачи пользователя
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskBulkRequestDTO {
+    private List<Long> ids;
+    private String username;
+}
@@ -0,0 +1,13 @@
+package com.example.task_service.task_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskBulkResultDTO {
+    // Число изменённых строк; уже удалённые и отсутствующие задачи не считаются
+    private int affected;
+}
@@ -0,0 +1,18 @@
+package com.example.task_service.task_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// open и completed считаются только по активным задачам; total включает и мягко удалённые
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskCountsDTO {
+    private long total;
+    private long open;
+    private long completed;
+    private long active;
+}
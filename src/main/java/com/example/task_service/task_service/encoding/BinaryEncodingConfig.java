@@ -0,0 +1,51 @@
+package com.example.task_service.task_service.encoding;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Компактные представления той же модели для внутренних клиентов (gateway): Accept: application/cbor
+ * или application/x-jackson-smile, в запросах - такой же Content-Type.
+ * Конвертеры заменяют стандартные на их месте, после JSON, поэтому без явного Accept ответ остаётся JSON.
+ * ObjectMapper-ы строятся из того же Jackson2ObjectMapperBuilder, что и JSON: модули, формат дат и spring.jackson.*
+ * совпадают, меняется только кодировка.
+ */
+@Configuration
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    // Builder в Spring Boot - prototype, каждый бин получает свой экземпляр
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // Тело зависит от Accept: кэши должны хранить JSON, CBOR и Smile раздельно.
+    // Заголовок ставится до вызова контроллера, поэтому попадает и в 304
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.task_service.task_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Задача, перенесённая TaskArchiver из task в task_archive (см. v1.9__task_archive.xml).
+ * Архив только читается: по includeArchived=true в чтениях TaskService.
+ */
+@Entity
+@Table(name = "task_archive")
+@Immutable
+@Getter
+@NoArgsConstructor
+public class ArchivedTask {
+    @Id
+    private Long id;
+
+    private String title;
+
+    @Column(columnDefinition = "text")
+    private String description;
+
+    private boolean completed;
+
+    private boolean active;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -2,11 +2,16 @@ package com.example.task_service.task_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
 @Entity
 @Table(name = "roles")
+@Cacheable
+// Роли почти не меняются: достаточно нестрогой стратегии без soft-lock
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "role")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -2,6 +2,8 @@
 
     import jakarta.persistence.*;
     import lombok.*;
+    import org.hibernate.annotations.Cache;
+    import org.hibernate.annotations.CacheConcurrencyStrategy;
     import org.hibernate.annotations.CreationTimestamp;
     import org.hibernate.annotations.UpdateTimestamp;
 
@@ -9,14 +11,18 @@
 
     @Entity
     @Table(name = "task")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
     @Getter
     @Setter
     @NoArgsConstructor
     @AllArgsConstructor
     @Builder
     public class Task {
+        // Последовательность с pooled-оптимизатором: id выдаются пачками по 50, и Hibernate может батчить INSERT
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_id_seq")
+        @SequenceGenerator(name = "task_id_seq", sequenceName = "task_id_seq", allocationSize = 50)
         private Long id;
 
         private String title;
@@ -26,6 +32,7 @@
         private boolean completed;
 
         @Column
+        @Builder.Default
         private boolean active = true;
 
         @Column(nullable = false)
@@ -36,7 +43,13 @@
         @UpdateTimestamp
         private LocalDateTime updatedAt;
 
-        @ManyToOne
+        // Растёт на каждом UPDATE строки, пока она заблокирована: порядок изменений задачи для outbox
+        @Version
+        @Column(nullable = false)
+        private Long version;
+
+        // LAZY: запись одной задачи не тянет пользователя; списки подгружают его через @EntityGraph или проекции
+        @ManyToOne(fetch = FetchType.LAZY)
         @JoinColumn(name = "user_id") // внешний ключ на пользователя
         private User user;
 
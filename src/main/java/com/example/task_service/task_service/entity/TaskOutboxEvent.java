@@ -0,0 +1,50 @@
+package com.example.task_service.task_service.entity;
+
+import com.example.task_service.task_service.outbox.TaskEventType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка transactional outbox (см. v1.6__task_outbox.xml). Пишется вместе с изменением задачи,
+ * publishedAt проставляет TaskOutboxPublisher после доставки в TaskEventSink.
+ */
+@Entity
+@Table(name = "task_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_outbox_id_seq")
+    @SequenceGenerator(name = "task_outbox_id_seq", sequenceName = "task_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    // Task.version после изменения: события задачи публикуются и дедуплицируются по (taskId, taskVersion)
+    @Column(nullable = false)
+    private Long taskVersion;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private TaskEventType eventType;
+
+    // TaskDTO в JSON на момент изменения; null для DELETED
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt;
+}
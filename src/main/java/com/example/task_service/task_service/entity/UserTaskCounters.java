@@ -0,0 +1,37 @@
+package com.example.task_service.task_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Счётчики задач пользователя (см. v1.10__user_task_counters.xml). Через JPA только читаются;
+ * пишет их TaskCounters дельтами в транзакциях изменения задач и TaskCounterReconciler.
+ */
+@Entity
+@Table(name = "user_task_counters")
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTaskCounters {
+    @Id
+    private Long userId;
+
+    @Column(name = "total_count", nullable = false)
+    private long total;
+
+    @Column(name = "open_count", nullable = false)
+    private long open;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completed;
+
+    @Column(name = "active_count", nullable = false)
+    private long active;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,119 @@
+package com.example.task_service.task_service.etag;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.encoding.BinaryEncodingConfig;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * ETag-и строятся из updatedAt, а не из тела ответа: версию можно получить одним дешёвым запросом
+ * и ответить 304 без загрузки и сериализации данных.
+ * Время берётся с точностью до микросекунд - это точность timestamp в PostgreSQL, а сущность в памяти
+ * (и во втором уровне кэша) может хранить наносекунды.
+ */
+public final class ETags {
+    // Представления одной модели в порядке конвертеров Spring MVC (см. BinaryEncodingConfig)
+    private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, MediaType.parseMediaType(BinaryEncodingConfig.SMILE_VALUE));
+
+    private ETags() {
+    }
+
+    // Сильный ETag одной задачи в JSON: тело однозначно определяется строкой task
+    public static String strong(Long id, LocalDateTime updatedAt) {
+        return strong(id, updatedAt, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Сильный ETag побайтно совпадает только у одинаковых тел, поэтому у CBOR и Smile он свой.
+     * У JSON суффикса нет - ETag-и, уже сохранённые клиентами, остаются действительными.
+     */
+    public static String strong(Long id, LocalDateTime updatedAt, MediaType representation) {
+        String suffix = MediaType.APPLICATION_JSON.equalsTypeAndSubtype(representation)
+                ? ""
+                : "+" + representation.getSubtype();
+        return "\"" + id + "-" + micros(updatedAt) + suffix + "\"";
+    }
+
+    public static String strong(TaskDTO task, MediaType representation) {
+        return strong(task.getId(), task.getUpdatedAt(), representation);
+    }
+
+    /**
+     * Какое представление Spring MVC выберет по Accept: наибольший q, затем более конкретный тип,
+     * затем порядок конвертеров. Без Accept и при ошибке разбора - JSON, как и у самого Spring.
+     */
+    public static MediaType representation(String accept) {
+        MediaType best = MediaType.APPLICATION_JSON;
+        double bestQuality = 0;
+        int bestSpecificity = -1;
+        try {
+            for (MediaType requested : MediaType.parseMediaTypes(accept)) {
+                double quality = requested.getQualityValue();
+                int specificity = (requested.isWildcardType() ? 0 : 1) + (requested.isWildcardSubtype() ? 0 : 1);
+                if (quality < bestQuality || (quality == bestQuality && specificity <= bestSpecificity)) {
+                    continue;
+                }
+                for (MediaType producible : REPRESENTATIONS) {
+                    if (requested.isCompatibleWith(producible)) {
+                        best = producible;
+                        bestQuality = quality;
+                        bestSpecificity = specificity;
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return best;
+    }
+
+    /**
+     * Слабый ETag коллекции по последнему изменению в ней (null - коллекция пуста).
+     * scope - то, что выбирает содержимое ответа (список, пользователь, страница, курсор, фильтры):
+     * без него разные страницы и разные списки с одной версией получили бы одинаковый ETag.
+     * Хэшируется строковое представление - оно одинаково на всех экземплярах сервиса.
+     */
+    public static String weak(LocalDateTime latestUpdate, Object... scope) {
+        CRC32 crc = new CRC32();
+        crc.update(Arrays.toString(scope).getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + (latestUpdate == null ? 0L : micros(latestUpdate)) + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    /**
+     * Проверка If-Match: сравнение строгое, слабые ETag не совпадают ни с чем; отсутствие заголовка - совпадение.
+     * Подходит ETag любого представления текущей версии: клиент мог прочитать задачу в CBOR, а менять её в JSON.
+     */
+    public static boolean matchesIfMatch(String ifMatch, Long id, LocalDateTime updatedAt) {
+        if (ifMatch == null) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            for (MediaType representation : REPRESENTATIONS) {
+                if (value.equals(strong(id, updatedAt, representation))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Округление, а не отбрасывание: драйвер PostgreSQL округляет наносекунды так же при записи
+    private static long micros(LocalDateTime time) {
+        LocalDateTime rounded = time.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+        return rounded.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + rounded.getNano() / 1_000;
+    }
+}
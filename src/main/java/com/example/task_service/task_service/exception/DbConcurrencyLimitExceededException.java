@@ -0,0 +1,7 @@
+package com.example.task_service.task_service.exception;
+
+public class DbConcurrencyLimitExceededException extends RuntimeException {
+    public DbConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
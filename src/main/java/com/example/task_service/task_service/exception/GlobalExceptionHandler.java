@@ -1,6 +1,7 @@
 package com.example.task_service.task_service.exception;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,8 +12,6 @@ import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import io.github.resilience4j.ratelimiter.RequestNotPermitted;
-
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -37,22 +36,56 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
-    @ExceptionHandler(RequestNotPermitted.class)
-    public ResponseEntity<Map<String, Object>> handleRateLimitException(RequestNotPermitted ex, WebRequest request) {
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    // Task.version не совпал: задачу изменили параллельно (запись под блокировкой строки этого не допускает)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Resource was modified concurrently, retry the request");
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimitException(RateLimitExceededException ex, WebRequest request) {
+        // Retry-After в целых секундах, с округлением вверх: раньше повтор всё равно получит 429
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
         body.put("error", "Too Many Requests");
-        body.put("message", "Rate limit exceeded. Please try again later.");
+        body.put("message", ex.getMessage());
         body.put("path", request.getDescription(false).replace("uri=", ""));
-        body.put("retryAfter", "10"); // Время в секундах до следующей попытки
+        body.put("retryAfter", String.valueOf(retryAfterSeconds)); // Время в секундах до следующей попытки
 
         return ResponseEntity
                 .status(HttpStatus.TOO_MANY_REQUESTS)
-                .header("Retry-After", "10")
+                .header("Retry-After", String.valueOf(retryAfterSeconds))
                 .body(body);
     }
 
+    @ExceptionHandler(DbConcurrencyLimitExceededException.class)
+    public ResponseEntity<String> handleDbConcurrencyLimitExceeded(DbConcurrencyLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleServiceOverloaded(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(SubscriberLimitExceededException.class)
+    public ResponseEntity<String> handleSubscriberLimitExceeded(SubscriberLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(ex.getMessage());
+    }
+
     // Обработка всех остальных необработанных исключений
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGlobalException(Exception ex) {
@@ -0,0 +1,16 @@
+package com.example.task_service.task_service.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+    // Через сколько клиенту будет разрешён следующий запрос
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.task_service.task_service.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.task_service.task_service.exception;
+
+public class SubscriberLimitExceededException extends RuntimeException {
+    public SubscriberLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.task_service.task_service.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.Set;
+
+/**
+ * Готовый к отправке SSE-кадр. Собирается один раз на событие и отправляется всем подписчикам пользователя.
+ * outboxId - id строки outbox, по нему отбрасываются дубли при досылке; у служебных кадров он отрицательный.
+ */
+record FeedFrame(long outboxId, Set<ResponseBodyEmitter.DataWithMediaType> data) {
+}
@@ -0,0 +1,127 @@
+package com.example.task_service.task_service.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Одно SSE-соединение: ограниченная очередь кадров и флаг "писатель уже запущен".
+ * Хаб только кладёт кадры в очередь и никогда не пишет в сокет сам; запись идёт отдельной задачей,
+ * которая вычерпывает очередь до конца. Пока не выполнена досылка пропущенного, кадры копятся без отправки.
+ * Состояние защищает ReentrantLock, а не synchronized: next() вызывают писатели на виртуальных потоках,
+ * и монитор закреплял бы их за потоком-носителем (JDK 21).
+ */
+final class FeedSubscriber {
+
+    enum Offer {
+        // Кадр в очереди, писатель уже работает (или подписчик ещё ждёт досылки)
+        QUEUED,
+        // Кадр в очереди, нужно запустить писателя
+        SCHEDULE,
+        // Очередь полна: клиент не успевает читать
+        OVERFLOW,
+        CLOSED
+    }
+
+    private final long userId;
+    private final SseEmitter emitter;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<FeedFrame> queue = new ArrayDeque<>();
+    private boolean paused = true;
+    private boolean draining;
+    private boolean closed;
+
+    FeedSubscriber(long userId, SseEmitter emitter, int capacity) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+    }
+
+    long userId() {
+        return userId;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    Offer offer(FeedFrame frame) {
+        lock.lock();
+        try {
+            if (closed) {
+                return Offer.CLOSED;
+            }
+            if (queue.size() >= capacity) {
+                return Offer.OVERFLOW;
+            }
+            queue.add(frame);
+            return startDraining();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Досылка встаёт перед кадрами, пришедшими во время её чтения; совпавшие по outboxId не дублируются
+    Offer resume(List<FeedFrame> replay) {
+        Set<Long> replayed = replay.stream().map(FeedFrame::outboxId).collect(Collectors.toSet());
+        lock.lock();
+        try {
+            if (closed) {
+                return Offer.CLOSED;
+            }
+            ArrayDeque<FeedFrame> live = new ArrayDeque<>(queue);
+            queue.clear();
+            queue.addAll(replay);
+            live.stream()
+                    .filter(frame -> !replayed.contains(frame.outboxId()))
+                    .forEach(queue::add);
+            paused = false;
+            return startDraining();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    FeedFrame next() {
+        lock.lock();
+        try {
+            FeedFrame frame = closed ? null : queue.poll();
+            if (frame == null) {
+                draining = false;
+            }
+            return frame;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // true только для первого вызова: подписчика снимают с учёта ровно один раз
+    boolean close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            queue.clear();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под lock
+    private Offer startDraining() {
+        if (paused || draining || queue.isEmpty()) {
+            return Offer.QUEUED;
+        }
+        draining = true;
+        return Offer.SCHEDULE;
+    }
+}
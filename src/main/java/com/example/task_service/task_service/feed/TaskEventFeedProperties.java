@@ -0,0 +1,35 @@
+package com.example.task_service.task_service.feed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "task.events")
+public class TaskEventFeedProperties {
+    // Как часто хаб читает новые опубликованные события из outbox
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    // Размер страницы при чтении хвоста outbox
+    private int pollLimit = 1000;
+
+    // Окно повторного чтения хвоста: покрывает расхождение часов экземпляров и запоздалые коммиты издателей
+    private Duration grace = Duration.ofSeconds(2);
+
+    // Максимум событий, досылаемых по Last-Event-ID при переподключении
+    private int replayLimit = 1000;
+
+    // Очередь неотправленных событий одного подписчика; переполнение - отключение медленного клиента
+    private int bufferSize = 256;
+
+    private int maxSubscribers = 50_000;
+
+    // Комментарий-пинг держит соединение через прокси и выявляет отвалившихся клиентов
+    private Duration heartbeatInterval = Duration.ofSeconds(20);
+
+    // После таймаута клиент переподключается сам и продолжает с Last-Event-ID
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+}
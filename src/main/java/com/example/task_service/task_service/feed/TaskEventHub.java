@@ -0,0 +1,243 @@
+package com.example.task_service.task_service.feed;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import com.example.task_service.task_service.exception.BadRequestException;
+import com.example.task_service.task_service.exception.SubscriberLimitExceededException;
+import com.example.task_service.task_service.exception.UserNotFoundException;
+import com.example.task_service.task_service.outbox.TaskChangeEvent;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.repository.TaskOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Раздача событий об изменении задач по SSE-подпискам пользователей.
+ * Источник - опубликованные строки outbox: хаб читает их хвост сам, поэтому подписчик на любом экземпляре
+ * получает события, опубликованные любым издателем. Массовые операции (TaskService.setCompleted, deleteTasks)
+ * пишут событие на каждую изменённую задачу, так что клиенту не нужно перечитывать список после них.
+ * Подписки простаивающих клиентов не держат потоков: кадры складываются в ограниченные очереди,
+ * а пишут их короткоживущие виртуальные потоки.
+ */
+@Slf4j
+@Component
+public class TaskEventHub {
+    private final TaskOutboxRepository outboxRepository;
+    private final UserIdCache userIdCache;
+    private final TaskEventFeedProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Set<FeedSubscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Запись в сокет может заблокироваться на медленном клиенте - блокируется только его виртуальный поток
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final FeedFrame heartbeat = new FeedFrame(-1L, SseEmitter.event().comment("keepalive").build());
+    private final Counter evictions;
+
+    // Позиция в хвосте outbox и id, уже разосланные внутри окна grace; меняются только потоком планировщика
+    private LocalDateTime tailPublishedAt = LocalDateTime.now();
+    private final Map<Long, LocalDateTime> recentlySent = new HashMap<>();
+
+    public TaskEventHub(TaskOutboxRepository outboxRepository,
+                        UserIdCache userIdCache,
+                        TaskEventFeedProperties properties,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.userIdCache = userIdCache;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        Gauge.builder("task.events.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        this.evictions = Counter.builder("task.events.evictions").register(meterRegistry);
+    }
+
+    /**
+     * Подписка на события задач пользователя. lastEventId - id последнего полученного SSE-события:
+     * всё опубликованное после него (с запасом grace) досылается до живых событий.
+     * Получатель должен быть готов к повторам: уникальный ключ события - поле id в данных.
+     */
+    public SseEmitter subscribe(String username, String lastEventId) {
+        Long userId = userIdCache.findActiveUserId(username)
+                .orElseThrow(() -> new UserNotFoundException("User with username " + username + " not found"));
+        ResumePoint resumePoint = lastEventId == null ? null : ResumePoint.parse(lastEventId);
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriberLimitExceededException("Too many event stream subscribers, retry later");
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        FeedSubscriber subscriber = new FeedSubscriber(userId, emitter, properties.getBufferSize());
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+        // Сначала регистрация, потом чтение пропущенного: живые события за это время ждут в очереди
+        // compute, а не computeIfAbsent().add(): иначе можно добавиться в множество, которое remove() уже выкинул
+        subscribersByUser.compute(userId, (id, subscribers) -> {
+            Set<FeedSubscriber> target = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            target.add(subscriber);
+            return target;
+        });
+        try {
+            dispatch(subscriber, subscriber.resume(resumePoint == null ? List.of() : replay(userId, resumePoint)));
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.poll-interval:PT0.5S}")
+    public void poll() {
+        if (subscribersByUser.isEmpty()) {
+            tailPublishedAt = LocalDateTime.now();
+            recentlySent.clear();
+            return;
+        }
+        LocalDateTime at = tailPublishedAt.minus(properties.getGrace());
+        long afterId = 0L;
+        List<TaskOutboxEvent> page;
+        do {
+            page = outboxRepository.findPublishedAfter(at, afterId, Limit.of(properties.getPollLimit()));
+            for (TaskOutboxEvent event : page) {
+                at = event.getPublishedAt();
+                afterId = event.getId();
+                if (recentlySent.putIfAbsent(event.getId(), event.getPublishedAt()) == null) {
+                    fanOut(event);
+                }
+                if (event.getPublishedAt().isAfter(tailPublishedAt)) {
+                    tailPublishedAt = event.getPublishedAt();
+                }
+            }
+        } while (page.size() == properties.getPollLimit());
+
+        LocalDateTime horizon = tailPublishedAt.minus(properties.getGrace());
+        recentlySent.values().removeIf(publishedAt -> publishedAt.isBefore(horizon));
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.heartbeat-interval:PT20S}")
+    public void heartbeat() {
+        subscribersByUser.values().forEach(subscribers ->
+                subscribers.forEach(subscriber -> dispatch(subscriber, subscriber.offer(heartbeat))));
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private void fanOut(TaskOutboxEvent event) {
+        Set<FeedSubscriber> subscribers = subscribersByUser.get(event.getUserId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        FeedFrame frame = toFrame(event);
+        subscribers.forEach(subscriber -> dispatch(subscriber, subscriber.offer(frame)));
+    }
+
+    private List<FeedFrame> replay(Long userId, ResumePoint resumePoint) {
+        LocalDateTime since = resumePoint.publishedAt().minus(properties.getGrace());
+        return outboxRepository.findPublishedByUserIdSince(userId, since, Limit.of(properties.getReplayLimit()))
+                .stream()
+                .filter(event -> event.getId() != resumePoint.outboxId())
+                .map(this::toFrame)
+                .toList();
+    }
+
+    private void dispatch(FeedSubscriber subscriber, FeedSubscriber.Offer offer) {
+        switch (offer) {
+            case SCHEDULE -> writers.execute(() -> drain(subscriber));
+            case OVERFLOW -> evict(subscriber);
+            case QUEUED, CLOSED -> {
+            }
+        }
+    }
+
+    private void drain(FeedSubscriber subscriber) {
+        FeedFrame frame;
+        while ((frame = subscriber.next()) != null) {
+            try {
+                subscriber.emitter().send(frame.data());
+            } catch (IOException | IllegalStateException e) {
+                // Клиент ушёл: соединение закроет контейнер, здесь только снимаем подписку
+                remove(subscriber);
+                return;
+            }
+        }
+    }
+
+    private void evict(FeedSubscriber subscriber) {
+        if (remove(subscriber)) {
+            evictions.increment();
+            log.debug("Evicted slow event stream subscriber of user {}", subscriber.userId());
+            // complete() ждёт монитор emitter, который держит зависший писатель - не в потоке хаба
+            writers.execute(() -> subscriber.emitter().complete());
+        }
+    }
+
+    private boolean remove(FeedSubscriber subscriber) {
+        if (!subscriber.close()) {
+            return false;
+        }
+        subscribersByUser.computeIfPresent(subscriber.userId(), (userId, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private FeedFrame toFrame(TaskOutboxEvent event) {
+        try {
+            String json = objectMapper.writeValueAsString(TaskChangeEvent.from(event));
+            return new FeedFrame(event.getId(), SseEmitter.event()
+                    .id(CursorCodec.encode(event.getPublishedAt(), event.getId()))
+                    .name(event.getEventType().name())
+                    .data(json, MediaType.APPLICATION_JSON)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record ResumePoint(LocalDateTime publishedAt, long outboxId) {
+
+        static ResumePoint parse(String lastEventId) {
+            String[] keys = CursorCodec.decode(lastEventId, 2);
+            try {
+                return new ResumePoint(LocalDateTime.parse(keys[0]), Long.parseLong(keys[1]));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BadRequestException("Invalid Last-Event-ID: " + lastEventId);
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.task_service.task_service.mapper;
 
 import com.example.task_service.task_service.dto.TaskDTO;
 import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.repository.TaskChangeRow;
+import com.example.task_service.task_service.repository.TaskSearchRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -12,11 +14,27 @@ public interface TaskMapper {
     @Mapping(target = "userUsername", source = "user.username")
     TaskDTO toDTO(Task task);
 
+    // Пользователь задачи может быть неинициализированной ссылкой: username передаётся явно, чтобы не загружать его
+    @Mapping(target = "userUsername", source = "username")
+    TaskDTO toDTO(Task task, String username);
+
+    @Mapping(target = "userUsername", source = "username")
+    TaskDTO fromSearchRow(TaskSearchRow row);
+
+    @Mapping(target = "userUsername", source = "username")
+    TaskDTO fromChangeRow(TaskChangeRow row);
+
+    // id всегда выдаёт последовательность: клиентский id превращал бы INSERT в merge с лишним SELECT
+    @Mapping(target = "id", ignore = true)
+    // version ведёт Hibernate (@Version): null - признак новой сущности для save
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "user.username", source = "userUsername")
     Task toEntity(TaskDTO dto);
 
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
-    @Mapping(target = "user.username", source = "userUsername")
+    @Mapping(target = "version", ignore = true)
+    // Владелец задачи при обновлении не меняется: иначе MapStruct переименовывал бы связанного пользователя
+    @Mapping(target = "user", ignore = true)
     void updateTaskFromTaskDTO(TaskDTO taskDTO, @MappingTarget Task task);
 }
@@ -1,10 +1,10 @@
 package com.example.task_service.task_service.mapper;
 
+import com.example.task_service.task_service.cache.RoleRegistry;
 import com.example.task_service.task_service.dto.UserDTO;
 import com.example.task_service.task_service.entity.Role;
 import com.example.task_service.task_service.entity.User;
 import com.example.task_service.task_service.exception.BadRequestException;
-import com.example.task_service.task_service.repository.RoleRepository;
 import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -21,8 +21,8 @@ public interface UserMapper {
     UserDTO toDTO(User user);
 
     @Mapping(target = "id", ignore = true)
-    @Mapping(target = "roles", expression = "java(mapStringToRole(dto.getRoles(), roleRepository))")
-    User toEntity(UserDTO dto, @Context RoleRepository roleRepository);
+    @Mapping(target = "roles", expression = "java(mapStringToRole(dto.getRoles(), roleRegistry))")
+    User toEntity(UserDTO dto, @Context RoleRegistry roleRegistry);
 
     // Set<Role> → Set<String>
     default Set<String> mapRoleToString(Set<Role> roles) {
@@ -31,10 +31,10 @@ public interface UserMapper {
                 .collect(Collectors.toSet());
     }
 
-    // Set<String> → Set<Role>
-    default Set<Role> mapStringToRole(Set<String> roleNames, RoleRepository roleRepository) {
+    // Set<String> → Set<Role>, роли берутся из реестра в памяти, без запросов к БД
+    default Set<Role> mapStringToRole(Set<String> roleNames, RoleRegistry roleRegistry) {
         return roleNames.stream()
-                .map(roleName -> roleRepository.findByName(roleName)
+                .map(roleName -> roleRegistry.find(roleName)
                         .orElseThrow(() -> new BadRequestException("Role not found: " + roleName)))
                 .collect(Collectors.toSet());
     }
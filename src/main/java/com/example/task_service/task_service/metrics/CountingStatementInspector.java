@@ -0,0 +1,16 @@
+package com.example.task_service.task_service.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Вызывается Hibernate при подготовке каждого statement; батч INSERT считается одним запросом
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter counter = SqlStatementCounter.current();
+        if (counter != null) {
+            counter.increment(sql);
+        }
+        return sql;
+    }
+}
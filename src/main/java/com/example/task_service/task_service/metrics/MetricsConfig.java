@@ -0,0 +1,29 @@
+package com.example.task_service.task_service.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Таймеры методов сервисов: @Timed(SERVICE_METHOD_TIMER) на классе даёт по таймеру на каждый публичный метод
+ * (теги class и method). Гистограммы и SLO-бакеты задаются в management.metrics.distribution.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_METHOD_TIMER = "service.method";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Один экземпляр на SessionFactory: счётчик берётся из потока текущего HTTP-запроса
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new CountingStatementInspector());
+    }
+}
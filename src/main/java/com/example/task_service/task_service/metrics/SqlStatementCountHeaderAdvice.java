@@ -0,0 +1,36 @@
+package com.example.task_service.task_service.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Отдаёт число SQL-запросов в заголовке X-Sql-Statement-Count. Заголовок ставится перед записью тела,
+ * когда вся работа контроллера уже сделана; у потоковых ответов его нет.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "sql-statements", name = "expose-header", havingValue = "true")
+public class SqlStatementCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+    public static final String HEADER = "X-Sql-Statement-Count";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementCounter counter = SqlStatementCounter.current();
+        if (counter != null) {
+            response.getHeaders().set(HEADER, String.valueOf(counter.getCount()));
+        }
+        return body;
+    }
+}
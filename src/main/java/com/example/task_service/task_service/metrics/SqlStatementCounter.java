@@ -0,0 +1,55 @@
+package com.example.task_service.task_service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Счётчик SQL-запросов Hibernate в рамках одного HTTP-запроса.
+ * Привязан к потоку, в котором выполняется запрос: работа в async-потоках (StreamingResponseBody) сюда не попадает.
+ */
+public final class SqlStatementCounter {
+    public static final String REQUEST_ATTRIBUTE = SqlStatementCounter.class.getName();
+
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+
+    private int count;
+    // Текст запросов сохраняется только по запросу (тесты планов); null - только счёт
+    private final List<String> statements;
+
+    private SqlStatementCounter(boolean keepStatements) {
+        this.statements = keepStatements ? new ArrayList<>() : null;
+    }
+
+    static SqlStatementCounter start() {
+        return start(false);
+    }
+
+    static SqlStatementCounter start(boolean keepStatements) {
+        SqlStatementCounter counter = new SqlStatementCounter(keepStatements);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    static SqlStatementCounter current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    void increment(String sql) {
+        count++;
+        if (statements != null) {
+            statements.add(sql);
+        }
+    }
+
+    List<String> getStatements() {
+        return statements == null ? List.of() : List.copyOf(statements);
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.task_service.task_service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Считает SQL-запросы Hibernate на каждый HTTP-запрос: метрика http.server.requests.sql.statements
+ * с тегами method/uri и предупреждение в лог при превышении sql-statements.warn-threshold.
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final SqlStatementProperties properties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter counter = SqlStatementCounter.start();
+        request.setAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE, counter);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.clear();
+            record(request, counter.getCount());
+        }
+    }
+
+    private void record(HttpServletRequest request, int statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > properties.getWarnThreshold()) {
+            log.warn("{} {} executed {} SQL statements (threshold {}), possible N+1",
+                    request.getMethod(), uri, statements, properties.getWarnThreshold());
+        }
+    }
+}
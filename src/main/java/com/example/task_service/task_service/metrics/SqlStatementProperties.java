@@ -0,0 +1,15 @@
+package com.example.task_service.task_service.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sql-statements")
+public class SqlStatementProperties {
+    // Заголовок X-Sql-Statement-Count в ответах (включается в профиле dev)
+    private boolean exposeHeader = false;
+    // Запросы, сделавшие больше statements, пишутся в лог как вероятный N+1
+    private int warnThreshold = 20;
+}
@@ -0,0 +1,24 @@
+package com.example.task_service.task_service.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Доставка внутри процесса: каждое событие публикуется как ApplicationEvent.
+ * Синхронные @EventListener выполняются в транзакции издателя, их исключение откатывает пачку.
+ */
+@Component
+@ConditionalOnProperty(name = "task.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessTaskEventSink implements TaskEventSink {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<TaskChangeEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.task_service.task_service.outbox;
+
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие об изменении задачи в том виде, в каком его получают TaskEventSink.
+ * id - номер строки outbox: уникален, но порядка не задаёт - экземпляры сервиса берут id из последовательности
+ * пачками, а транзакции фиксируются в любом порядке. Порядок изменений одной задачи - taskVersion
+ * (Task.version, присвоенный под блокировкой строки задачи); ключ идемпотентности у получателя - (taskId, taskVersion).
+ */
+@Getter
+@AllArgsConstructor
+public class TaskChangeEvent {
+    private final long id;
+    private final TaskEventType type;
+    private final long taskId;
+    private final long taskVersion;
+    private final long userId;
+    private final LocalDateTime occurredAt;
+
+    // TaskDTO уже сериализован при записи в outbox; null для DELETED
+    @JsonRawValue
+    private final String task;
+
+    public static TaskChangeEvent from(TaskOutboxEvent event) {
+        return new TaskChangeEvent(event.getId(), event.getEventType(), event.getTaskId(), event.getTaskVersion(),
+                event.getUserId(), event.getCreatedAt(), event.getPayload());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.task_service.task_service.outbox;
+
+import java.util.List;
+
+/**
+ * Получатель событий из outbox. События одной задачи приходят строго по возрастанию taskVersion,
+ * порядок между разными задачами не гарантируется.
+ * Исключение означает, что пачка не доставлена: она останется в outbox и уйдёт повторно (at-least-once).
+ */
+public interface TaskEventSink {
+
+    void publish(List<TaskChangeEvent> events);
+}
@@ -0,0 +1,7 @@
+package com.example.task_service.task_service.outbox;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
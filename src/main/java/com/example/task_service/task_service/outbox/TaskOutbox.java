@@ -0,0 +1,70 @@
+package com.example.task_service.task_service.outbox;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import com.example.task_service.task_service.repository.TaskChangeRow;
+import com.example.task_service.task_service.repository.TaskOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Запись событий об изменении задач в outbox. Вызывается только внутри транзакции изменения:
+ * задача и событие фиксируются вместе, публикацию делает TaskOutboxPublisher.
+ * Задача должна быть уже записана (flush), чтобы её version был номером именно этого изменения.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskOutbox {
+    private final TaskOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(TaskEventType type, Task task, TaskDTO payload) {
+        // id владельца берётся из ленивой ссылки без загрузки пользователя
+        outboxRepository.save(event(type, task.getId(), task.getVersion(), task.getUser().getId(), toJson(payload)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Task task) {
+        outboxRepository.save(event(TaskEventType.DELETED, task.getId(), task.getVersion(), task.getUser().getId(), null));
+    }
+
+    /**
+     * События массовой операции: по строке на задачу, изменённую UPDATE ... RETURNING.
+     * Строки вставляются JDBC-батчами; для DELETED payload не пишется.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(TaskEventType type, List<TaskChangeRow> rows, Function<TaskChangeRow, TaskDTO> payload) {
+        outboxRepository.saveAll(rows.stream()
+                .map(row -> event(type, row.getId(), row.getVersion(), row.getUserId(),
+                        type == TaskEventType.DELETED ? null : toJson(payload.apply(row))))
+                .toList());
+    }
+
+    private static TaskOutboxEvent event(TaskEventType type, Long taskId, Long taskVersion, Long userId, String payload) {
+        return TaskOutboxEvent.builder()
+                .taskId(taskId)
+                .taskVersion(taskVersion)
+                .userId(userId)
+                .eventType(type)
+                .payload(payload)
+                .build();
+    }
+
+    private String toJson(TaskDTO task) {
+        try {
+            return objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
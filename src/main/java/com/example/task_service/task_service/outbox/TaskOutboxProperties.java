@@ -0,0 +1,34 @@
+package com.example.task_service.task_service.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "task.outbox")
+public class TaskOutboxProperties {
+    // Максимум событий в одной доставке в TaskEventSink
+    private int batchSize = 100;
+
+    // Пауза между опросами outbox, если прошлая пачка была неполной; полные пачки выбираются без паузы
+    private Duration linger = Duration.ofMillis(200);
+
+    // Сколько хранить опубликованные события (досылка пропущенного по Last-Event-ID и т.п.)
+    private Duration retention = Duration.ofDays(1);
+
+    // in-process - ApplicationEvent внутри сервиса, webhook - POST пачки событий на webhook.url
+    private String sink = "in-process";
+
+    private Webhook webhook = new Webhook();
+
+    @Getter
+    @Setter
+    public static class Webhook {
+        private String url;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+    }
+}
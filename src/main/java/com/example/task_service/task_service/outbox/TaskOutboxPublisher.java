@@ -0,0 +1,106 @@
+package com.example.task_service.task_service.outbox;
+
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import com.example.task_service.task_service.repository.TaskOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая публикация outbox пачками. Несколько экземпляров сервиса работают параллельно:
+ * строки захватываются через FOR UPDATE SKIP LOCKED, события одной задачи уходят только одним издателем и по порядку.
+ * Пачка помечается опубликованной в той же транзакции, где отдана в sink; при ошибке она уйдёт повторно.
+ */
+@Slf4j
+@Component
+public class TaskOutboxPublisher {
+    private final TaskOutboxRepository outboxRepository;
+    private final TaskEventSink sink;
+    private final TaskOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer deliveryLag;
+    private final Counter published;
+    private final Counter failures;
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    public TaskOutboxPublisher(TaskOutboxRepository outboxRepository,
+                               TaskEventSink sink,
+                               TaskOutboxProperties properties,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Время от записи события до доставки в sink
+        this.deliveryLag = Timer.builder("task.outbox.delivery.lag")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.published = Counter.builder("task.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("task.outbox.publish.failures").register(meterRegistry);
+        // Возраст самого старого неопубликованного события: растёт, если издатель стоит или не успевает
+        TimeGauge.builder("task.outbox.oldest.pending.age", oldestPendingAgeMillis, TimeUnit.MILLISECONDS,
+                        AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${task.outbox.linger:PT0.2S}", initialDelayString = "${task.outbox.linger:PT0.2S}")
+    public void drain() {
+        try {
+            int count;
+            do {
+                count = publishBatch();
+            } while (count == properties.getBatchSize());
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Task outbox batch was not delivered and will be retried", e);
+        } finally {
+            updateOldestPendingAge();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${task.outbox.cleanup-interval:PT1H}")
+    public void deletePublished() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getRetention());
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(before));
+        log.debug("Deleted {} published outbox events older than {}", deleted, before);
+    }
+
+    int publishBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Long> taskIds = outboxRepository.lockPendingTaskIds(properties.getBatchSize());
+            if (taskIds.isEmpty()) {
+                return 0;
+            }
+            List<TaskOutboxEvent> batch = outboxRepository.lockPendingByTaskIds(taskIds, properties.getBatchSize());
+            sink.publish(batch.stream().map(TaskChangeEvent::from).toList());
+
+            LocalDateTime now = LocalDateTime.now();
+            outboxRepository.markPublished(batch.stream().map(TaskOutboxEvent::getId).toList(), now);
+            batch.forEach(event -> deliveryLag.record(Duration.between(event.getCreatedAt(), now)));
+            published.increment(batch.size());
+            return batch.size();
+        });
+        return count == null ? 0 : count;
+    }
+
+    private void updateOldestPendingAge() {
+        long ageMillis = outboxRepository.findFirstByPublishedAtIsNullOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L);
+        oldestPendingAgeMillis.set(ageMillis);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.task_service.task_service.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * Доставка пачкой: POST JSON-массива событий на task.outbox.webhook.url.
+ * Любой ответ кроме 2xx (и таймаут) - ошибка доставки, пачка уйдёт повторно.
+ */
+@Component
+@ConditionalOnProperty(name = "task.outbox.sink", havingValue = "webhook")
+public class WebhookTaskEventSink implements TaskEventSink {
+    private final RestClient restClient;
+
+    public WebhookTaskEventSink(RestClient.Builder restClientBuilder, TaskOutboxProperties properties) {
+        this(restClientBuilder.requestFactory(requestFactory(properties.getWebhook())).build(), properties);
+    }
+
+    WebhookTaskEventSink(RestClient restClient, TaskOutboxProperties properties) {
+        if (!StringUtils.hasText(properties.getWebhook().getUrl())) {
+            throw new IllegalStateException("task.outbox.webhook.url is required for the webhook sink");
+        }
+        this.restClient = restClient.mutate()
+                .baseUrl(properties.getWebhook().getUrl())
+                .build();
+    }
+
+    @Override
+    public void publish(List<TaskChangeEvent> events) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(TaskOutboxProperties.Webhook webhook) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(webhook.getConnectTimeout());
+        requestFactory.setReadTimeout(webhook.getReadTimeout());
+        return requestFactory;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.task_service.task_service.pagination;
+
+import com.example.task_service.task_service.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации.
+ * Клиент получает base64url-строку и не должен разбирать её содержимое.
+ */
+public final class CursorCodec {
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Object... keys) {
+        String raw = Arrays.stream(keys)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedKeys) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\" + SEPARATOR, -1);
+            if (keys.length != expectedKeys) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encodeId(long id) {
+        return encode(id);
+    }
+
+    public static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
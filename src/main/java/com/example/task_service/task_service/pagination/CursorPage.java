@@ -0,0 +1,39 @@
+package com.example.task_service.task_service.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Страница keyset-пагинации: элементы плюс курсор на следующую страницу (null, если страниц больше нет).
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Строит страницу из выборки размером limit + 1: лишняя строка только сигнализирует, что есть продолжение.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit, ToLongFunction<E> idExtractor, Function<E, T> mapper) {
+        return ofKeys(rows, limit, row -> CursorCodec.encodeId(idExtractor.applyAsLong(row)), mapper);
+    }
+
+    /**
+     * То же для составного ключа сортировки: cursorEncoder строит курсор из последней строки страницы.
+     */
+    public static <E, T> CursorPage<T> ofKeys(List<E> rows, int limit, Function<E, String> cursorEncoder, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<E> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? cursorEncoder.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.task_service.task_service.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Тело ответа в cursor-режиме остаётся обычным массивом, курсор следующей страницы отдаётся в заголовке.
+ */
+public final class CursorResponses {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorResponses() {
+    }
+
+    public static <T> ResponseEntity<List<T>> of(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.hasNext()) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.task_service.task_service.pagination;
+
+import com.example.task_service.task_service.exception.BadRequestException;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "api.pagination")
+public class PaginationProperties {
+    private int defaultLimit = 10;
+    private int maxLimit = 100;
+
+    public int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        return Math.min(requested, maxLimit);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.task_service.task_service.ratelimit;
+
+/**
+ * По какому признаку запросы относятся к одному клиенту. Аутентифицированный принципал важнее заголовка,
+ * заголовок учитывается только от доверенного шлюза; иначе клиент определяется по адресу.
+ */
+public enum ClientKey {
+    API_KEY("key:"),
+    USERNAME("user:"),
+    IP("ip:");
+
+    private final String prefix;
+
+    ClientKey(String prefix) {
+        this.prefix = prefix;
+    }
+
+    // Префикс разводит ключи разных типов с одинаковым значением
+    String qualify(String value) {
+        return prefix + value;
+    }
+}
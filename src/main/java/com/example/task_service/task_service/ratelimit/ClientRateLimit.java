@@ -0,0 +1,16 @@
+package com.example.task_service.task_service.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Политика лимита (rate-limit.policies.*) для метода контроллера.
+ * Методы без аннотации подпадают под rate-limit.default-policy.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClientRateLimit {
+    String value();
+}
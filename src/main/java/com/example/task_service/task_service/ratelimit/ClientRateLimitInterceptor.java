@@ -0,0 +1,68 @@
+package com.example.task_service.task_service.ratelimit;
+
+import com.example.task_service.task_service.exception.RateLimitExceededException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+import java.time.Duration;
+
+/**
+ * Проверяет лимит до разбора аргументов и вызова контроллера. Отказ - RateLimitExceededException (429)
+ * с временем до следующего разрешённого запроса этого клиента.
+ */
+public class ClientRateLimitInterceptor implements HandlerInterceptor {
+    private final ClientRateLimiters limiters;
+    private final RateLimitProperties properties;
+    private final TrustedProxies trustedProxies;
+
+    public ClientRateLimitInterceptor(ClientRateLimiters limiters, RateLimitProperties properties) {
+        this.limiters = limiters;
+        this.properties = properties;
+        this.trustedProxies = new TrustedProxies(properties.getTrustedProxies());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Асинхронное продолжение (потоковые ответы, SSE) и ERROR-диспатч уже были посчитаны
+        if (!properties.isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        ClientRateLimit annotation = method.getMethodAnnotation(ClientRateLimit.class);
+        String policy = annotation != null ? annotation.value() : properties.getDefaultPolicy();
+        if (!StringUtils.hasText(policy)) {
+            return true;
+        }
+        long waitNanos = limiters.tryAcquire(policy, clientKey(limiters.get(policy).getKey(), request));
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException("Rate limit exceeded. Please try again later.", Duration.ofNanos(waitNanos));
+        }
+        return true;
+    }
+
+    /**
+     * Клиент - аутентифицированный принципал; API-ключ или имя из заголовка - только от доверенного шлюза,
+     * который сам их проверил; иначе адрес. Заголовку от самого клиента верить нельзя: меняя его,
+     * клиент получал бы новое ведро на каждый запрос.
+     */
+    private String clientKey(ClientKey key, HttpServletRequest request) {
+        if (key == ClientKey.IP) {
+            return ClientKey.IP.qualify(request.getRemoteAddr());
+        }
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return ClientKey.USERNAME.qualify(principal.getName());
+        }
+        String header = key == ClientKey.API_KEY ? properties.getApiKeyHeader() : properties.getUsernameHeader();
+        String value = request.getHeader(header);
+        if (StringUtils.hasText(value) && trustedProxies.contains(request.getRemoteAddr())) {
+            return key.qualify(value);
+        }
+        return ClientKey.IP.qualify(request.getRemoteAddr());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.task_service.task_service.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Лимитеры по политикам из rate-limit.policies: у каждой свой набор ключей и свои счётчики отказов.
+ */
+@Component
+public class ClientRateLimiters {
+    private final Map<String, GcraRateLimiter> limiters;
+    private final Map<String, Counter> rejected;
+
+    public ClientRateLimiters(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        Map<String, GcraRateLimiter> limitersByPolicy = new LinkedHashMap<>();
+        Map<String, Counter> rejectedByPolicy = new LinkedHashMap<>();
+        properties.getPolicies().forEach((name, policy) -> {
+            GcraRateLimiter limiter = new GcraRateLimiter(name, policy, properties.getMaxKeys(), System::nanoTime);
+            limitersByPolicy.put(name, limiter);
+            rejectedByPolicy.put(name, Counter.builder("rate.limit.rejected")
+                    .tag("policy", name)
+                    .register(meterRegistry));
+            Gauge.builder("rate.limit.keys", limiter, l -> l.getBuckets().estimatedSize())
+                    .tag("policy", name)
+                    .register(meterRegistry);
+        });
+        this.limiters = Map.copyOf(limitersByPolicy);
+        this.rejected = Map.copyOf(rejectedByPolicy);
+    }
+
+    public GcraRateLimiter get(String policy) {
+        GcraRateLimiter limiter = limiters.get(policy);
+        if (limiter == null) {
+            throw new IllegalStateException("Unknown rate limit policy: " + policy);
+        }
+        return limiter;
+    }
+
+    /**
+     * @return 0, если запрос разрешён, иначе наносекунды до следующей попытки
+     */
+    public long tryAcquire(String policy, String clientKey) {
+        long waitNanos = get(policy).tryAcquire(clientKey);
+        if (waitNanos > 0) {
+            rejected.get(policy).increment();
+        }
+        return waitNanos;
+    }
+}
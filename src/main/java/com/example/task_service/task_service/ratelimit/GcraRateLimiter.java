@@ -0,0 +1,64 @@
+package com.example.task_service.task_service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket в форме GCRA: на клиента хранится одно число - теоретическое время следующего запроса (TAT).
+ * Запрос проходит, если TAT отстоит от текущего момента не дальше, чем на burst интервалов, и сдвигает его
+ * на один интервал. Обновление - CAS по AtomicLong, без блокировок; ключи лежат в Caffeine, чтение
+ * существующего ключа не берёт локов, а учёт доступа идёт через полосатые буферы.
+ */
+public class GcraRateLimiter {
+    private static final long UNSET = Long.MIN_VALUE;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final ClientKey key;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    @Getter
+    private final Cache<String, AtomicLong> buckets;
+
+    public GcraRateLimiter(String name, RateLimitProperties.Policy policy, long maxKeys, LongSupplier nanoClock) {
+        if (policy.getLimit() <= 0 || policy.effectiveBurst() <= 0) {
+            throw new IllegalArgumentException("Rate limit policy " + name + " must have positive limit and burst");
+        }
+        this.name = name;
+        this.key = policy.getKey();
+        this.emissionIntervalNanos = Math.max(1, policy.getPeriod().toNanos() / policy.getLimit());
+        this.burstToleranceNanos = emissionIntervalNanos * policy.effectiveBurst();
+        this.nanoClock = nanoClock;
+        // Через burst интервалов простоя ведро клиента гарантированно полное: удаление ключа ничего не меняет
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(burstToleranceNanos))
+                .build();
+    }
+
+    /**
+     * @return 0, если запрос разрешён, иначе через сколько наносекунд клиент может повторить запрос
+     */
+    public long tryAcquire(String clientKey) {
+        AtomicLong tat = buckets.get(clientKey, k -> new AtomicLong(UNSET));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = tat.get();
+            long next = (current == UNSET || current - now < 0 ? now : current) + emissionIntervalNanos;
+            long allowedAt = next - burstToleranceNanos;
+            if (allowedAt - now > 0) {
+                return allowedAt - now;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
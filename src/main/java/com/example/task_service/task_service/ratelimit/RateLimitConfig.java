@@ -0,0 +1,19 @@
+package com.example.task_service.task_service.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Только API: actuator и swagger под лимит не попадают
+@Configuration
+@RequiredArgsConstructor
+public class RateLimitConfig implements WebMvcConfigurer {
+    private final ClientRateLimiters limiters;
+    private final RateLimitProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ClientRateLimitInterceptor(limiters, properties)).addPathPatterns("/api/**");
+    }
+}
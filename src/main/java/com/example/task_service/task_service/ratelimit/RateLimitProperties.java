@@ -0,0 +1,42 @@
+package com.example.task_service.task_service.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private String apiKeyHeader = "X-Api-Key";
+    private String usernameHeader = "X-Username";
+    // Шлюзы (IP или CIDR), от которых принимаются apiKeyHeader и usernameHeader; пусто - заголовки не учитываются
+    private List<String> trustedProxies = new ArrayList<>();
+    // Ключей в памяти на политику; при переполнении вытесняются самые редкие клиенты
+    private long maxKeys = 200_000;
+    // Политика для эндпоинтов без @ClientRateLimit; пусто - без лимита
+    private String defaultPolicy = "default";
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+        // Средняя скорость: limit запросов за period
+        private int limit = 50;
+        private Duration period = Duration.ofSeconds(1);
+        // Сколько запросов подряд допускается после простоя; по умолчанию - limit
+        private Integer burst;
+        private ClientKey key = ClientKey.IP;
+
+        public int effectiveBurst() {
+            return burst != null ? burst : limit;
+        }
+    }
+}
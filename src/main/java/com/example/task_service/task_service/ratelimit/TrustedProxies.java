@@ -0,0 +1,70 @@
+package com.example.task_service.task_service.ratelimit;
+
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Шлюзы из rate-limit.trusted-proxies: IP-адреса или подсети в CIDR (10.0.0.0/8, fd00::/8).
+ * Сравниваются с непосредственным отправителем запроса - request.getRemoteAddr().
+ */
+final class TrustedProxies {
+    private final List<Network> networks;
+
+    TrustedProxies(List<String> addresses) {
+        this.networks = addresses.stream().filter(StringUtils::hasText).map(Network::parse).toList();
+    }
+
+    boolean contains(String address) {
+        if (networks.isEmpty() || address == null) {
+            return false;
+        }
+        byte[] bytes = literal(address);
+        return bytes != null && networks.stream().anyMatch(network -> network.matches(bytes));
+    }
+
+    // remoteAddr контейнер отдаёт уже числом, разрешения имён здесь нет
+    private static byte[] literal(String address) {
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Network(byte[] address, int prefixLength) {
+
+        static Network parse(String value) {
+            int slash = value.indexOf('/');
+            byte[] address = literal(slash < 0 ? value.trim() : value.substring(0, slash).trim());
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid trusted proxy address: " + value);
+            }
+            int prefixLength = slash < 0 ? address.length * 8 : Integer.parseInt(value.substring(slash + 1).trim());
+            if (prefixLength < 0 || prefixLength > address.length * 8) {
+                throw new IllegalArgumentException("Invalid trusted proxy prefix length: " + value);
+            }
+            return new Network(address, prefixLength);
+        }
+
+        boolean matches(byte[] candidate) {
+            if (candidate.length != address.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (candidate[i] != address[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return (candidate[fullBytes] & mask) == (address[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.task_service.task_service.repository;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.ArchivedTask;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Те же чтения, что в TaskRepository, но по task_archive. Мягко удалённые задачи в архиве не отдаются.
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+    String ARCHIVED_TASK_DTO_SELECT = "SELECT new com.example.task_service.task_service.dto.TaskDTO("
+            + "t.id, t.title, t.description, t.completed, u.username, t.createdAt, t.updatedAt) "
+            + "FROM ArchivedTask t JOIN t.user u ";
+
+    @Query("SELECT t.updatedAt FROM ArchivedTask t WHERE t.id = :id AND t.active = true")
+    Optional<LocalDateTime> findActiveUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT max(t.updatedAt) FROM ArchivedTask t JOIN t.user u WHERE u.username = :username")
+    Optional<LocalDateTime> findLatestUpdatedAtByUsername(@Param("username") String username);
+
+    @Query(ARCHIVED_TASK_DTO_SELECT + "WHERE t.id = :id AND t.active = true")
+    Optional<TaskDTO> findActiveAsDTOById(@Param("id") Long id);
+
+    @Query(ARCHIVED_TASK_DTO_SELECT + "WHERE u.username = :username AND t.active = true ORDER BY t.id")
+    List<TaskDTO> findActiveAsDTOByUsername(@Param("username") String username);
+
+    @Query(ARCHIVED_TASK_DTO_SELECT + "WHERE u.username = :username AND t.active = true AND t.id > :afterId ORDER BY t.id")
+    List<TaskDTO> findActiveAsDTOByUsernameAfter(@Param("username") String username,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+}
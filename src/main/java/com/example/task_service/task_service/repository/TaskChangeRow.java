@@ -0,0 +1,26 @@
+package com.example.task_service.task_service.repository;
+
+import java.time.LocalDateTime;
+
+// Задача после массового UPDATE ... RETURNING: из неё пишутся событие outbox и изменение счётчиков пользователя
+public interface TaskChangeRow {
+    Long getId();
+
+    Long getUserId();
+
+    Long getVersion();
+
+    String getTitle();
+
+    String getDescription();
+
+    boolean isCompleted();
+
+    boolean isActive();
+
+    String getUsername();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
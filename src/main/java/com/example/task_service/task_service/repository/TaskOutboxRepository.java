@@ -0,0 +1,56 @@
+package com.example.task_service.task_service.repository;
+
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TaskOutboxRepository extends JpaRepository<TaskOutboxEvent, Long> {
+
+    // Захват "голов" очередей: неопубликованное событие каждой задачи с наименьшей версией задачи.
+    // Порядок - по (task_version, id), а не по id: id выдаются экземплярам пачками и не отражают порядок фиксации,
+    // а версию задачи следующее изменение получает только после фиксации предыдущего (под блокировкой строки).
+    // Более поздние события задачи сюда не попадают, пока голова не опубликована, а залоченные головы
+    // другие экземпляры пропускают (SKIP LOCKED) - так одну задачу никогда не публикуют два издателя сразу.
+    @Query(value = "SELECT o.task_id FROM task_outbox o "
+            + "WHERE o.published_at IS NULL AND NOT EXISTS ("
+            + "SELECT 1 FROM task_outbox p WHERE p.task_id = o.task_id AND p.published_at IS NULL "
+            + "AND (p.task_version, p.id) < (o.task_version, o.id)) "
+            + "ORDER BY o.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockPendingTaskIds(@Param("limit") int limit);
+
+    // Все неопубликованные события захваченных задач; LIMIT отрезает только хвосты очередей по версии
+    @Query(value = "SELECT * FROM task_outbox WHERE published_at IS NULL AND task_id IN (:taskIds) "
+            + "ORDER BY task_id, task_version, id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<TaskOutboxEvent> lockPendingByTaskIds(@Param("taskIds") Collection<Long> taskIds, @Param("limit") int limit);
+
+    Optional<TaskOutboxEvent> findFirstByPublishedAtIsNullOrderByIdAsc();
+
+    // Хвост опубликованных событий для SSE-ленты: keyset по (publishedAt, id)
+    @Query("SELECT e FROM TaskOutboxEvent e WHERE e.publishedAt >= :at AND (e.publishedAt > :at OR e.id > :afterId) "
+            + "ORDER BY e.publishedAt, e.id")
+    List<TaskOutboxEvent> findPublishedAfter(@Param("at") LocalDateTime at, @Param("afterId") long afterId, Limit limit);
+
+    @Query("SELECT e FROM TaskOutboxEvent e WHERE e.userId = :userId AND e.publishedAt >= :since "
+            + "ORDER BY e.publishedAt, e.id")
+    List<TaskOutboxEvent> findPublishedByUserIdSince(@Param("userId") Long userId,
+                                                     @Param("since") LocalDateTime since,
+                                                     Limit limit);
+
+    @Modifying
+    @Query("UPDATE TaskOutboxEvent e SET e.publishedAt = :now WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM TaskOutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
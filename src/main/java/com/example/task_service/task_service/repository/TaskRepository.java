@@ -1,20 +1,137 @@
 package com.example.task_service.task_service.repository;
 
+import com.example.task_service.task_service.dto.TaskDTO;
 import com.example.task_service.task_service.entity.Task;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
-    @Query("SELECT t FROM Task t JOIN FETCH t.user WHERE t.user.username = :username")
-    List<Task> findByUserUsername(@Param("username") String username);
+    // Проекция прямо в TaskDTO: без гидрации сущностей, снапшотов для dirty checking и маппинга через MapStruct
+    String TASK_DTO_SELECT = "SELECT new com.example.task_service.task_service.dto.TaskDTO("
+            + "t.id, t.title, t.description, t.completed, u.username, t.createdAt, t.updatedAt) "
+            + "FROM Task t JOIN t.user u ";
+    // Новое состояние задачи из массового UPDATE task t ... FROM users u (см. TaskChangeRow)
+    String TASK_CHANGE_RETURNING = "RETURNING t.id AS id, t.user_id AS \"userId\", t.version AS version, "
+            + "t.title AS title, t.description AS description, t.completed AS completed, t.active AS active, "
+            + "u.username AS username, t.created_at AS \"createdAt\", t.updated_at AS \"updatedAt\"";
+
+    // Версии для ETag (см. ETags): одна строка по первичному ключу или max по индексу на updated_at.
+    // В max входят и неактивные задачи: мягкое удаление тоже сдвигает updatedAt и должно менять ETag списка.
+    @Query("SELECT t.updatedAt FROM Task t WHERE t.id = :id AND t.active = true")
+    Optional<LocalDateTime> findActiveUpdatedAtById(@Param("id") Long id);
+
+    // Версия списка - последнее изменение задачи или последний перенос в архив: TaskArchiver убирает
+    // завершённые задачи из списков, не меняя max(updated_at). Одним запросом, чтобы не добавлять statement
+    @Query("SELECT greatest(max(t.updatedAt), (SELECT max(a.archivedAt) FROM ArchivedTask a)) FROM Task t")
+    Optional<LocalDateTime> findListVersion();
+
+    @Query("SELECT greatest(max(t.updatedAt), (SELECT max(a.archivedAt) FROM ArchivedTask a JOIN a.user au "
+            + "WHERE au.username = :username)) FROM Task t JOIN t.user u WHERE u.username = :username")
+    Optional<LocalDateTime> findListVersionByUsername(@Param("username") String username);
+
+    // Изменение одной задачи: строка блокируется до сверки If-Match и до UPDATE, который увеличит version
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id = :id")
+    Optional<Task> findByIdForUpdate(@Param("id") Long id);
+
+    @Query(value = TASK_DTO_SELECT + "WHERE t.active = true",
+            countQuery = "SELECT count(t) FROM Task t WHERE t.active = true")
+    Page<TaskDTO> findAllActiveAsDTO(Pageable pageable);
+
+    // Keyset-пагинация: seek по первичному ключу, без OFFSET и без COUNT(*)
+    @Query(TASK_DTO_SELECT + "WHERE t.active = true AND t.id > :afterId ORDER BY t.id")
+    List<TaskDTO> findActiveAsDTOAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "WHERE u.username = :username AND t.active = true ORDER BY t.id")
+    List<TaskDTO> findActiveAsDTOByUsername(@Param("username") String username);
+
+    @Query(TASK_DTO_SELECT + "WHERE u.username = :username AND t.active = true AND t.id > :afterId ORDER BY t.id")
+    List<TaskDTO> findActiveAsDTOByUsernameAfter(@Param("username") String username,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    // Серверный курсор JDBC: строки читаются порциями по 500, работает только внутри транзакции
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(TASK_DTO_SELECT + "WHERE u.username = :username AND t.active = true ORDER BY t.id")
+    Stream<TaskDTO> streamActiveAsDTOByUsername(@Param("username") String username);
+
+    // Полнотекстовый поиск по search_vector (GIN-индекс, см. v1.5__task_search.xml).
+    // Порядок - rank DESC, id ASC; курсор (afterRank, afterId) - последняя строка предыдущей страницы.
+    // Пустой username означает "без фильтра по пользователю": null в нативном запросе теряет тип параметра.
+    @Query(value = "SELECT * FROM ("
+            + "SELECT t.id AS id, t.title AS title, t.description AS description, t.completed AS completed, "
+            + "u.username AS username, t.created_at AS \"createdAt\", t.updated_at AS \"updatedAt\", "
+            + "ts_rank(t.search_vector, q.query) AS rank "
+            + "FROM task t JOIN users u ON u.id = t.user_id "
+            + "CROSS JOIN websearch_to_tsquery('simple', :query) AS q(query) "
+            + "WHERE t.search_vector @@ q.query AND t.active = :active "
+            + "AND (:username = '' OR u.username = :username)"
+            + ") r WHERE r.rank < :afterRank OR (r.rank = :afterRank AND r.id > :afterId) "
+            + "ORDER BY r.rank DESC, r.id LIMIT :limit",
+            nativeQuery = true)
+    List<TaskSearchRow> search(@Param("query") String query,
+                               @Param("username") String username,
+                               @Param("active") boolean active,
+                               @Param("afterRank") float afterRank,
+                               @Param("afterId") long afterId,
+                               @Param("limit") int limit);
+
+    // Строки массовой операции по id блокируются до UPDATE в порядке id: параллельные массовые операции
+    // над пересекающимися id не взаимоблокируются
+    @Query(value = "SELECT id FROM task WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("ids") Collection<Long> ids);
+
+    // Массовые UPDATE одним запросом. RETURNING отдаёт ровно изменённые строки в новом состоянии: по ним
+    // пишутся события outbox и изменения счётчиков. Под READ COMMITTED задача, вставленная параллельно
+    // с операцией по пользователю, либо изменена и возвращена, либо не затронута - отдельное чтение до или после
+    // UPDATE могло бы с ним разойтись. Запросы нативные: из second-level cache изменённые задачи вытесняет
+    // вызывающий код. @UpdateTimestamp и @Version здесь не действуют, поэтому updatedAt передаётся, а version
+    // растёт явно.
+    @Query(value = "UPDATE task t SET completed = :completed, updated_at = :now, version = t.version + 1 "
+            + "FROM users u WHERE u.id = t.user_id AND t.id IN (:ids) AND t.active AND t.completed <> :completed "
+            + TASK_CHANGE_RETURNING,
+            nativeQuery = true)
+    List<TaskChangeRow> updateCompletedByIds(@Param("ids") Collection<Long> ids,
+                                             @Param("completed") boolean completed,
+                                             @Param("now") LocalDateTime now);
+
+    @Query(value = "UPDATE task t SET completed = :completed, updated_at = :now, version = t.version + 1 "
+            + "FROM users u WHERE u.id = t.user_id AND t.user_id = :userId AND t.active AND t.completed <> :completed "
+            + TASK_CHANGE_RETURNING,
+            nativeQuery = true)
+    List<TaskChangeRow> updateCompletedByUserId(@Param("userId") Long userId,
+                                                @Param("completed") boolean completed,
+                                                @Param("now") LocalDateTime now);
 
-    Page<Task> findAllByActiveTrue(Pageable pageable);
+    @Query(value = "UPDATE task t SET active = false, updated_at = :now, version = t.version + 1 "
+            + "FROM users u WHERE u.id = t.user_id AND t.id IN (:ids) AND t.active "
+            + TASK_CHANGE_RETURNING,
+            nativeQuery = true)
+    List<TaskChangeRow> deactivateByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 
-    Optional<Task> findByIdAndActiveTrue(Long id);
+    @Query(value = "UPDATE task t SET active = false, updated_at = :now, version = t.version + 1 "
+            + "FROM users u WHERE u.id = t.user_id AND t.user_id = :userId AND t.active "
+            + TASK_CHANGE_RETURNING,
+            nativeQuery = true)
+    List<TaskChangeRow> deactivateByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 }
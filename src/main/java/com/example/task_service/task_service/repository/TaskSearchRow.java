@@ -0,0 +1,22 @@
+package com.example.task_service.task_service.repository;
+
+import java.time.LocalDateTime;
+
+// Строка результата полнотекстового поиска: поля TaskDTO плюс ранг, который входит в курсор
+public interface TaskSearchRow {
+    Long getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    boolean isCompleted();
+
+    String getUsername();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    float getRank();
+}
@@ -1,21 +1,72 @@
 package com.example.task_service.task_service.repository;
 
 import com.example.task_service.task_service.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
+    @Query("SELECT u.id FROM User u WHERE u.username = :username AND u.active = true")
+    Optional<Long> findActiveIdByUsername(@Param("username") String username);
+
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.username = :username AND u.active = true")
     Optional<User> findByUsernameAndActiveTrue(@Param("username") String username);
 
-    @Query("SELECT u FROM User u WHERE u.active = true")
-    Page<User> findAllByActiveTrue(Pageable pageable);
+    // Версии для ETag (см. ETags)
+    @Query("SELECT max(u.updatedAt) FROM User u")
+    Optional<LocalDateTime> findLatestUpdatedAt();
+
+    @Query("SELECT u.updatedAt FROM User u WHERE u.username = :username AND u.active = true")
+    Optional<LocalDateTime> findActiveUpdatedAtByUsername(@Param("username") String username);
+
+    // Списки пользователей грузятся в две фазы: страница id, затем сущности вместе с roles одним запросом.
+    // Fetch join коллекции прямо в постраничном запросе Hibernate выполнил бы без LIMIT, отрезая страницу в памяти.
+    default Page<User> findAllByActiveTrue(Pageable pageable) {
+        Page<Long> ids = findActiveIds(pageable);
+        Map<Long, User> users = byId(ids.isEmpty() ? List.of() : findAllWithRolesByIdIn(ids.getContent()));
+        return ids.map(users::get);
+    }
+
+    // Keyset-пагинация: seek по первичному ключу, без OFFSET и без COUNT(*)
+    default List<User> findActiveAfter(Long afterId, Limit limit) {
+        List<Long> ids = findActiveIdsAfter(afterId, limit);
+        Map<Long, User> users = byId(ids.isEmpty() ? List.of() : findAllWithRolesByIdIn(ids));
+        return ids.stream().map(users::get).toList();
+    }
+
+    @Query(value = "SELECT u.id FROM User u WHERE u.active = true",
+            countQuery = "SELECT count(u) FROM User u WHERE u.active = true")
+    Page<Long> findActiveIds(Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Все пользователи, включая деактивированных, порциями по id (пересчёт счётчиков задач)
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @EntityGraph(attributePaths = "roles")
+    @Query("SELECT u FROM User u WHERE u.id IN :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // IN (...) не сохраняет порядок страницы, поэтому он восстанавливается по списку id
+    private static Map<Long, User> byId(List<User> users) {
+        return users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+    }
 
 }
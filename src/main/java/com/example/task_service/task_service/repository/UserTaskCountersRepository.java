@@ -0,0 +1,7 @@
+package com.example.task_service.task_service.repository;
+
+import com.example.task_service.task_service.entity.UserTaskCounters;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserTaskCountersRepository extends JpaRepository<UserTaskCounters, Long> {
+}
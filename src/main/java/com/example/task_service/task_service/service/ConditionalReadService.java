@@ -0,0 +1,45 @@
+package com.example.task_service.task_service.service;
+
+import com.example.task_service.task_service.concurrency.ConcurrencyPriority;
+import com.example.task_service.task_service.concurrency.RequestPriority;
+import com.example.task_service.task_service.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Условный GET одной read-only транзакцией: версия для ETag и тело ответа читаются через одно соединение
+ * (одну реплику) в одном снимке REPEATABLE READ, поэтому ETag описывает ровно то тело, с которым уходит.
+ * В раздельных транзакциях версия и тело могли прийти с реплик с разным отставанием, и клиент, сохранивший
+ * более новый ETag при старом теле, потом получал 304 на устаревшую копию.
+ * Методы сервисов, вызванные из version и body, присоединяются к этой транзакции.
+ * Приоритет для AdaptiveConcurrencyLimiter - как у тела ответа: при перегрузке 304 на список тоже отсекается.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_METHOD_TIMER)
+public class ConditionalReadService {
+
+    /**
+     * @param notModified сверка версии с If-None-Match (WebRequest#checkNotModified)
+     * @return тело или null, если клиенту уходит 304 - тогда тело не читается
+     */
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public <V, T> T readList(Supplier<V> version, Predicate<V> notModified, Supplier<T> body) {
+        return read(version, notModified, body);
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public <V, T> T readOne(Supplier<V> version, Predicate<V> notModified, Supplier<T> body) {
+        return read(version, notModified, body);
+    }
+
+    private static <V, T> T read(Supplier<V> version, Predicate<V> notModified, Supplier<T> body) {
+        return notModified.test(version.get()) ? null : body.get();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.task_service.task_service.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "task.batch")
+public class TaskBatchProperties {
+    // Максимальное число задач в одном запросе POST /api/v1/tasks/batch
+    private int maxSize = 500;
+
+    // Максимальное число id в одной массовой операции (/api/v1/tasks/bulk/*)
+    private int maxBulkIds = 10_000;
+}
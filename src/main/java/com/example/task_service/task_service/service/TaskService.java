@@ -1,80 +1,468 @@
 package com.example.task_service.task_service.service;
 
-import com.example.logexecution.annotation.LogExecutionTime;
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.concurrency.ConcurrencyLimitExempt;
+import com.example.task_service.task_service.concurrency.ConcurrencyPriority;
+import com.example.task_service.task_service.concurrency.RequestPriority;
+import com.example.task_service.task_service.counters.TaskCountDelta;
+import com.example.task_service.task_service.counters.TaskCounters;
+import com.example.task_service.task_service.dto.TaskBatchItemResultDTO;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskBulkResultDTO;
+import com.example.task_service.task_service.dto.TaskCountsDTO;
 import com.example.task_service.task_service.dto.TaskDTO;
 import com.example.task_service.task_service.entity.Task;
-import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.etag.ETags;
 import com.example.task_service.task_service.exception.BadRequestException;
+import com.example.task_service.task_service.exception.PreconditionFailedException;
+import com.example.task_service.task_service.exception.UserNotFoundException;
 import com.example.task_service.task_service.mapper.TaskMapper;
+import com.example.task_service.task_service.metrics.MetricsConfig;
+import com.example.task_service.task_service.outbox.TaskEventType;
+import com.example.task_service.task_service.outbox.TaskOutbox;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.pagination.CursorPage;
+import com.example.task_service.task_service.pagination.PaginationProperties;
+import com.example.task_service.task_service.repository.ArchivedTaskRepository;
 import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.TaskChangeRow;
+import com.example.task_service.task_service.repository.TaskSearchRow;
 import com.example.task_service.task_service.repository.UserRepository;
+import com.example.task_service.task_service.repository.UserTaskCountersRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
+@Timed(MetricsConfig.SERVICE_METHOD_TIMER)
 public class TaskService {
+    // task.title - VARCHAR(100) NOT NULL
+    private static final int MAX_TITLE_LENGTH = 100;
 
     private final TaskRepository taskRepository;
     private final TaskMapper taskMapper;
     private final UserRepository userRepository;
+    private final PaginationProperties paginationProperties;
+    private final UserIdCache userIdCache;
+    private final TaskBatchProperties batchProperties;
+    private final TaskOutbox taskOutbox;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final TaskCounters taskCounters;
+    private final UserTaskCountersRepository userTaskCountersRepository;
+    private final EntityManagerFactory entityManagerFactory;
 
-    @LogExecutionTime
+    // Версии для ETag: отвечают на If-None-Match без загрузки задач
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getTaskVersion(Long id) {
+        return getTaskVersion(id, false);
+    }
+
+    // includeArchived: задача ищется и в task_archive (см. TaskArchiver), но только при промахе по горячей таблице
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getTaskVersion(Long id, boolean includeArchived) {
+        Optional<LocalDateTime> version = taskRepository.findActiveUpdatedAtById(id);
+        return version.isPresent() || !includeArchived ? version : archivedTaskRepository.findActiveUpdatedAtById(id);
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getTasksVersion() {
+        return taskRepository.findListVersion();
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getTasksVersionByUsername(String username) {
+        return getTasksVersionByUsername(username, false);
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getTasksVersionByUsername(String username, boolean includeArchived) {
+        Optional<LocalDateTime> version = taskRepository.findListVersionByUsername(username);
+        if (!includeArchived) {
+            return version;
+        }
+        return Stream.of(version, archivedTaskRepository.findLatestUpdatedAtByUsername(username))
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder());
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
     public Page<TaskDTO> getAllTasks(Pageable pageable) {
-        return taskRepository.findAllByActiveTrue(pageable)
-                .map(taskMapper::toDTO);
+        return taskRepository.findAllActiveAsDTO(pageable);
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> getTasksAfter(String after, Integer limit) {
+        long afterId = after == null ? 0L : CursorCodec.decodeId(after);
+        int pageSize = paginationProperties.resolveLimit(limit);
+        // Берём на одну строку больше, чтобы узнать о следующей странице без COUNT(*)
+        List<TaskDTO> rows = taskRepository.findActiveAsDTOAfter(afterId, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, TaskDTO::getId, Function.identity());
     }
 
-    @LogExecutionTime
+    // Загрузка по id идёт через second-level cache (регион "task", ленивый user - из региона "user"),
+    // поэтому здесь сущность, а не DTO-проекция: проекция всегда идёт в БД.
+    // Промах кэша стоит гидрации сущности и маппинга, зато повторные чтения горячих задач обходятся без SQL
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
     public TaskDTO getTaskById(Long id) {
-        return taskRepository.findByIdAndActiveTrue(id)
+        return getTaskById(id, false);
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public TaskDTO getTaskById(Long id, boolean includeArchived) {
+        return taskRepository.findById(id)
+                .filter(Task::isActive)
                 .map(taskMapper::toDTO)
+                .or(() -> includeArchived ? archivedTaskRepository.findActiveAsDTOById(id) : Optional.empty())
                 .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
     }
 
-    @LogExecutionTime
+    @Transactional
     public TaskDTO createTask(TaskDTO taskDTO) {
         if (taskDTO.getUserUsername() == null) {
             throw new BadRequestException("User username is required");
         }
+        String titleError = validateTitle(taskDTO);
+        if (titleError != null) {
+            throw new BadRequestException(titleError);
+        }
 
-        User user = userRepository.findByUsername(taskDTO.getUserUsername())
+        Long userId = userIdCache.findActiveUserId(taskDTO.getUserUsername())
                 .orElseThrow(() -> new BadRequestException("User with username " + taskDTO.getUserUsername() + " not found"));
 
         Task task = taskMapper.toEntity(taskDTO);
-        task.setUser(user);
+        // Для вставки нужен только внешний ключ, поэтому ссылка вместо загрузки пользователя
+        task.setUser(userRepository.getReferenceById(userId));
         task = taskRepository.save(task);
-        return taskMapper.toDTO(task);
+        TaskDTO created = taskMapper.toDTO(task, taskDTO.getUserUsername());
+        taskOutbox.record(TaskEventType.CREATED, task, created);
+        taskCounters.record(userId, TaskCountDelta.of(task.isActive(), task.isCompleted()));
+        return created;
     }
 
-    @LogExecutionTime
+    /**
+     * Создаёт пачку задач в одной транзакции. Некорректные элементы отклоняются по отдельности,
+     * остальные вставляются JDBC-батчами (id берутся из pooled-последовательности).
+     */
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional
+    public List<TaskBatchItemResultDTO> createTasks(List<TaskDTO> taskDTOs) {
+        if (taskDTOs == null || taskDTOs.isEmpty()) {
+            throw new BadRequestException("At least one task is required");
+        }
+        if (taskDTOs.size() > batchProperties.getMaxSize()) {
+            throw new BadRequestException("Batch size must not exceed " + batchProperties.getMaxSize());
+        }
+
+        TaskBatchItemResultDTO[] results = new TaskBatchItemResultDTO[taskDTOs.size()];
+        Map<String, Optional<Long>> userIds = new HashMap<>();
+        List<Task> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            String username = taskDTOs.get(i).getUserUsername();
+            if (username == null) {
+                results[i] = TaskBatchItemResultDTO.rejected(i, "User username is required");
+                continue;
+            }
+            // Иначе ошибка всплыла бы только на общем flush и отклонила бы всю пачку
+            String titleError = validateTitle(taskDTOs.get(i));
+            if (titleError != null) {
+                results[i] = TaskBatchItemResultDTO.rejected(i, titleError);
+                continue;
+            }
+            Optional<Long> userId = userIds.computeIfAbsent(username, userIdCache::findActiveUserId);
+            if (userId.isEmpty()) {
+                results[i] = TaskBatchItemResultDTO.rejected(i, "User with username " + username + " not found");
+                continue;
+            }
+            Task task = taskMapper.toEntity(taskDTOs.get(i));
+            task.setUser(userRepository.getReferenceById(userId.get()));
+            accepted.add(task);
+            acceptedIndexes.add(i);
+        }
+
+        taskRepository.saveAll(accepted);
+        // INSERT-ы выполняются здесь, батчами по hibernate.jdbc.batch_size
+        taskRepository.flush();
+
+        Map<Long, TaskCountDelta> counts = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            Task task = accepted.get(i);
+            TaskDTO created = taskMapper.toDTO(task, taskDTOs.get(index).getUserUsername());
+            taskOutbox.record(TaskEventType.CREATED, task, created);
+            counts.merge(task.getUser().getId(), TaskCountDelta.of(task.isActive(), task.isCompleted()), TaskCountDelta::plus);
+            results[index] = TaskBatchItemResultDTO.created(index, created);
+        }
+        taskCounters.recordAll(counts);
+        return List.of(results);
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByUsername(String username) {
-        return taskRepository.findByUserUsername(username)
-                .stream()
-                .map(taskMapper::toDTO)
-                .toList();
+        return getTasksByUsername(username, false);
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public List<TaskDTO> getTasksByUsername(String username, boolean includeArchived) {
+        List<TaskDTO> tasks = taskRepository.findActiveAsDTOByUsername(username);
+        return includeArchived ? mergeById(tasks, archivedTaskRepository.findActiveAsDTOByUsername(username)) : tasks;
     }
 
-    @LogExecutionTime
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> getTasksByUsernameAfter(String username, String after, Integer limit) {
+        return getTasksByUsernameAfter(username, after, limit, false);
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> getTasksByUsernameAfter(String username, String after, Integer limit, boolean includeArchived) {
+        long afterId = after == null ? 0L : CursorCodec.decodeId(after);
+        int pageSize = paginationProperties.resolveLimit(limit);
+        List<TaskDTO> rows = taskRepository.findActiveAsDTOByUsernameAfter(username, afterId, Limit.of(pageSize + 1));
+        if (includeArchived) {
+            // Курсор общий для обеих таблиц: id не пересекаются, страница - начало слияния двух seek-выборок
+            rows = mergeById(rows,
+                    archivedTaskRepository.findActiveAsDTOByUsernameAfter(username, afterId, Limit.of(pageSize + 1)));
+        }
+        return CursorPage.of(rows, pageSize, TaskDTO::getId, Function.identity());
+    }
+
+    // Счётчики поддерживаются при каждом изменении задач (TaskCounters): чтение - одна строка по ключу,
+    // сколько бы задач ни было у пользователя
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public TaskCountsDTO getTaskCounts(String username) {
+        Long userId = userIdCache.findActiveUserId(username)
+                .orElseThrow(() -> new UserNotFoundException("User with username " + username + " not found"));
+        return userTaskCountersRepository.findById(userId)
+                .map(counters -> new TaskCountsDTO(counters.getTotal(), counters.getOpen(),
+                        counters.getCompleted(), counters.getActive()))
+                .orElseGet(TaskCountsDTO::new);
+    }
+
+    /**
+     * Полнотекстовый поиск по title/description (синтаксис websearch: слова, "фразы", -исключения).
+     * Результаты упорядочены по релевантности, курсор - пара (rank, id) последней строки.
+     */
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> searchTasks(String query, String username, boolean active, String after, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query is required");
+        }
+        float afterRank = Float.MAX_VALUE;
+        long afterId = 0L;
+        if (after != null) {
+            String[] keys = CursorCodec.decode(after, 2);
+            try {
+                afterRank = Float.parseFloat(keys[0]);
+                afterId = Long.parseLong(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor: " + after);
+            }
+        }
+        int pageSize = paginationProperties.resolveLimit(limit);
+        List<TaskSearchRow> rows = taskRepository.search(query, username == null ? "" : username, active,
+                afterRank, afterId, pageSize + 1);
+        return CursorPage.ofKeys(rows, pageSize, row -> CursorCodec.encode(row.getRank(), row.getId()),
+                taskMapper::fromSearchRow);
+    }
+
+    /**
+     * Отдаёт задачи пользователя по одной, не собирая их в список.
+     * Проекция не попадает в persistence context, поэтому память не растёт вместе с выборкой.
+     * Вызов длится, пока клиент читает ответ, поэтому он вне адаптивного лимита.
+     */
+    @ConcurrencyLimitExempt
+    @Transactional(readOnly = true)
+    public void streamTasksByUsername(String username, Consumer<TaskDTO> consumer) {
+        try (Stream<TaskDTO> tasks = taskRepository.streamActiveAsDTOByUsername(username)) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    @Transactional
     public TaskDTO updateTask(Long id, TaskDTO taskDTO) {
-        return taskRepository.findById(id)
-                .map(existingTask -> {
-                    taskMapper.updateTaskFromTaskDTO(taskDTO, existingTask);
-                    return taskMapper.toDTO(taskRepository.save(existingTask));
-                })
+        return updateTask(id, taskDTO, null);
+    }
+
+    /**
+     * Обновление с условием If-Match: клиент, у которого есть актуальный ETag, обновляет задачу без GET перед PUT.
+     * Строка блокируется до сверки версии; несовпадение - PreconditionFailedException (412).
+     * Блокировка берётся и без If-Match: параллельные изменения задачи выстраиваются в очередь,
+     * и каждое получает следующий Task.version (порядок событий в outbox) вместо OptimisticLockException.
+     */
+    @Transactional
+    public TaskDTO updateTask(Long id, TaskDTO taskDTO, String ifMatch) {
+        Task existingTask = taskRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
+        if (!ETags.matchesIfMatch(ifMatch, existingTask.getId(), existingTask.getUpdatedAt())) {
+            throw new PreconditionFailedException("Task with id " + id + " has been modified");
+        }
+        boolean wasActive = existingTask.isActive();
+        boolean wasCompleted = existingTask.isCompleted();
+        taskMapper.updateTaskFromTaskDTO(taskDTO, existingTask);
+        // flush, чтобы ответ (и его ETag) нёс updatedAt, проставленный @UpdateTimestamp
+        TaskDTO updated = taskMapper.toDTO(taskRepository.saveAndFlush(existingTask));
+        taskOutbox.record(TaskEventType.UPDATED, existingTask, updated);
+        taskCounters.record(existingTask.getUser().getId(),
+                TaskCountDelta.change(wasActive, wasCompleted, existingTask.isActive(), existingTask.isCompleted()));
+        return updated;
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional
+    public TaskBulkResultDTO setCompleted(TaskBulkRequestDTO request, boolean completed) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskChangeRow> changed;
+        if (request.getUsername() != null) {
+            changed = taskRepository.updateCompletedByUserId(resolveBulkUserId(request), completed, now);
+        } else {
+            Set<Long> ids = resolveBulkIds(request);
+            taskRepository.lockByIds(ids);
+            changed = taskRepository.updateCompletedByIds(ids, completed, now);
+        }
+        // Каждая изменённая строка - активная задача, перешедшая в состояние completed
+        TaskCountDelta change = TaskCountDelta.change(true, !completed, true, completed);
+        recordBulkChanges(TaskEventType.UPDATED, changed, row -> change);
+        return new TaskBulkResultDTO(changed.size());
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional
+    public TaskBulkResultDTO deleteTasks(TaskBulkRequestDTO request) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskChangeRow> changed;
+        if (request.getUsername() != null) {
+            changed = taskRepository.deactivateByUserId(resolveBulkUserId(request), now);
+        } else {
+            Set<Long> ids = resolveBulkIds(request);
+            taskRepository.lockByIds(ids);
+            changed = taskRepository.deactivateByIds(ids, now);
+        }
+        recordBulkChanges(TaskEventType.DELETED, changed,
+                row -> TaskCountDelta.change(true, row.isCompleted(), false, row.isCompleted()));
+        return new TaskBulkResultDTO(changed.size());
+    }
+
+    // События outbox, счётчики и вытеснение из кэша - ровно по строкам, которые изменил UPDATE
+    private void recordBulkChanges(TaskEventType type, List<TaskChangeRow> changed,
+                                   Function<TaskChangeRow, TaskCountDelta> change) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        taskOutbox.recordAll(type, changed, taskMapper::fromChangeRow);
+        taskCounters.recordAll(countChanges(changed, change));
+        evictAfterCommit(changed);
+    }
+
+    // Нативный UPDATE: Hibernate не знает, какие строки изменились. Вытесняем после коммита - до него
+    // параллельное чтение ещё видит старую строку и может вернуть её в кэш (как в TaskArchiver)
+    private void evictAfterCommit(List<TaskChangeRow> changed) {
+        List<Long> ids = changed.stream().map(TaskChangeRow::getId).toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> entityManagerFactory.getCache().evict(Task.class, id));
+            }
+        });
+    }
+
+    private static Map<Long, TaskCountDelta> countChanges(List<TaskChangeRow> changed,
+                                                          Function<TaskChangeRow, TaskCountDelta> change) {
+        Map<Long, TaskCountDelta> counts = new HashMap<>();
+        changed.forEach(row -> counts.merge(row.getUserId(), change.apply(row), TaskCountDelta::plus));
+        return counts;
+    }
+
+    private static String validateTitle(TaskDTO taskDTO) {
+        String title = taskDTO.getTitle();
+        if (title == null || title.isBlank()) {
+            return "Task title is required";
+        }
+        if (title.length() > MAX_TITLE_LENGTH) {
+            return "Task title must not exceed " + MAX_TITLE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private Long resolveBulkUserId(TaskBulkRequestDTO request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            throw new BadRequestException("Either ids or username must be given, not both");
+        }
+        return userIdCache.findActiveUserId(request.getUsername())
+                .orElseThrow(() -> new UserNotFoundException("User with username " + request.getUsername() + " not found"));
+    }
+
+    private Set<Long> resolveBulkIds(TaskBulkRequestDTO request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new BadRequestException("Either ids or username must be given");
+        }
+        if (request.getIds().contains(null)) {
+            throw new BadRequestException("Task ids must not be null");
+        }
+        // Дубликаты не нужны в IN-списке; сортировка даёт одинаковый порядок блокировок строк
+        Set<Long> ids = new TreeSet<>(request.getIds());
+        if (ids.size() > batchProperties.getMaxBulkIds()) {
+            throw new BadRequestException("Bulk operation must not exceed " + batchProperties.getMaxBulkIds() + " ids");
+        }
+        return ids;
+    }
+
+    // Горячая и архивная выборки упорядочены по id и не пересекаются: задача лежит ровно в одной таблице
+    private static List<TaskDTO> mergeById(List<TaskDTO> hot, List<TaskDTO> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        return Stream.concat(hot.stream(), archived.stream())
+                .sorted(Comparator.comparing(TaskDTO::getId))
+                .toList();
     }
 
-    @LogExecutionTime
+    @Transactional
     public void deleteTask(Long id) {
-        Task task = taskRepository.findById(id)
+        Task task = taskRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
+        boolean wasActive = task.isActive();
         task.setActive(false);
-        taskRepository.save(task);
+        // flush до записи события: в outbox уходит version, который получила строка
+        taskRepository.saveAndFlush(task);
+        taskOutbox.recordDeleted(task);
+        taskCounters.record(task.getUser().getId(),
+                TaskCountDelta.change(wasActive, task.isCompleted(), false, task.isCompleted()));
     }
 }
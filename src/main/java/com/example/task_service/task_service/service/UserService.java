@@ -1,6 +1,9 @@
 package com.example.task_service.task_service.service;
 
-import com.example.logexecution.annotation.LogExecutionTime;
+import com.example.task_service.task_service.cache.RoleRegistry;
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.concurrency.ConcurrencyPriority;
+import com.example.task_service.task_service.concurrency.RequestPriority;
 import com.example.task_service.task_service.dto.UserDTO;
 import com.example.task_service.task_service.entity.Role;
 import com.example.task_service.task_service.entity.User;
@@ -8,53 +11,94 @@ import com.example.task_service.task_service.exception.BadRequestException;
 import com.example.task_service.task_service.exception.RoleNotFoundException;
 import com.example.task_service.task_service.exception.UserNotFoundException;
 import com.example.task_service.task_service.mapper.UserMapper;
-import com.example.task_service.task_service.repository.RoleRepository;
+import com.example.task_service.task_service.metrics.MetricsConfig;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.pagination.CursorPage;
+import com.example.task_service.task_service.pagination.PaginationProperties;
 import com.example.task_service.task_service.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 @AllArgsConstructor
 @Service
+@Timed(MetricsConfig.SERVICE_METHOD_TIMER)
 public class UserService {
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final UserMapper userMapper;
+    private final PaginationProperties paginationProperties;
+    private final UserIdCache userIdCache;
 
 
-    @LogExecutionTime
+    @Transactional
     public UserDTO assignRolesToUser(String username, Set<String> roleNames) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("This User not found"));
 
         Set<Role> roles = roleNames.stream()
-                .map(name -> roleRepository.findByName(name)
+                .map(name -> roleRegistry.find(name)
                         .orElseThrow(() -> new RoleNotFoundException("This Role not found: " + name)))
                 .collect(Collectors.toSet());
 
         user.setRoles(roles);
+        // Изменение только user_roles не делает сущность "грязной": updatedAt сдвигается явно, иначе ETag не изменится
+        user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
         return userMapper.toDTO(user);
     }
 
-    @LogExecutionTime
+    // Версии для ETag списков пользователей
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getUsersVersion() {
+        return userRepository.findLatestUpdatedAt();
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getUserVersion(String username) {
+        return userRepository.findActiveUpdatedAtByUsername(username);
+    }
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
     public Page<UserDTO> getAllUsers(Pageable pageable) {
         return userRepository.findAllByActiveTrue(pageable)
                 .map(userMapper::toDTO);
     }
-    @LogExecutionTime
+
+    @ConcurrencyPriority(RequestPriority.LOW)
+    @Transactional(readOnly = true)
+    public CursorPage<UserDTO> getUsersAfter(String after, Integer limit) {
+        long afterId = after == null ? 0L : CursorCodec.decodeId(after);
+        int pageSize = paginationProperties.resolveLimit(limit);
+        List<User> rows = userRepository.findActiveAfter(afterId, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, User::getId, userMapper::toDTO);
+    }
+
+    @ConcurrencyPriority(RequestPriority.HIGH)
+    @Transactional(readOnly = true)
     public List<UserDTO> findByUsername(String username) {
         return userRepository.findByUsernameAndActiveTrue(username)
                 .stream()
                 .map(userMapper::toDTO)
                 .collect(Collectors.toList());
     }
-    @LogExecutionTime
+
+    @Transactional
     public UserDTO createUser(UserDTO userDTO) {
         if (userDTO.getRoles() == null || userDTO.getRoles().isEmpty()) {
             throw new BadRequestException("At least one role is required");
@@ -62,22 +106,31 @@ public class UserService {
 
         // Validate all roles exist before creating the user
         Set<Role> roles = userDTO.getRoles().stream()
-                .map(roleName -> roleRepository.findByName(roleName)
+                .map(roleName -> roleRegistry.find(roleName)
                         .orElseThrow(() -> new BadRequestException("Role " + roleName + " not found")))
                 .collect(Collectors.toSet());
 
-        User user = userMapper.toEntity(userDTO, roleRepository);
+        User user = userMapper.toEntity(userDTO, roleRegistry);
         user.setRoles(roles);
         user = userRepository.save(user);
         return userMapper.toDTO(user);
     }
 
-    @LogExecutionTime
+    @Transactional
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setActive(false);
         userRepository.save(user);
+        // Деактивированный пользователь не должен получать новые задачи через закэшированный id.
+        // Вытесняем после коммита: до него createTask ещё читает active = true и вернул бы id в кэш на весь TTL
+        String username = user.getUsername();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userIdCache.evict(username);
+            }
+        });
     }
 
 }
@@ -0,0 +1,173 @@
+package com.example.task_service.task_service.archive;
+
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class TaskArchiverTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("task.archive.batch-size", () -> "2");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskArchiver taskArchiver;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Task hot;
+    private Task deleted;
+    private Task oldCompleted;
+    private Task recentCompleted;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM task_archive");
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User owner = userRepository.save(User.builder()
+                .username("archiveOwner")
+                .email("archive@example.com")
+                .password("password")
+                .active(true)
+                .build());
+        hot = taskRepository.save(task("Hot", false, true, owner));
+        deleted = taskRepository.save(task("Deleted", false, false, owner));
+        oldCompleted = taskRepository.save(task("Old completed", true, true, owner));
+        recentCompleted = taskRepository.save(task("Recent completed", true, true, owner));
+        // @UpdateTimestamp не даёт сохранить старую дату через сущность
+        jdbcTemplate.update("UPDATE task SET updated_at = now() - interval '100 days' WHERE id = ?", oldCompleted.getId());
+    }
+
+    @Test
+    void archiveBatch_ShouldMoveOnlyInactiveAndOldCompletedTasks() {
+        assertEquals(1, taskArchiver.archiveBatch(ArchiveReason.INACTIVE));
+        assertEquals(1, taskArchiver.archiveBatch(ArchiveReason.COMPLETED));
+        assertEquals(0, taskArchiver.archiveBatch(ArchiveReason.INACTIVE));
+        assertEquals(0, taskArchiver.archiveBatch(ArchiveReason.COMPLETED));
+
+        assertEquals(List.of(hot.getId(), recentCompleted.getId()),
+                jdbcTemplate.queryForList("SELECT id FROM task ORDER BY id", Long.class));
+        assertEquals(List.of(deleted.getId(), oldCompleted.getId()),
+                jdbcTemplate.queryForList("SELECT id FROM task_archive ORDER BY id", Long.class));
+        assertEquals("Old completed", jdbcTemplate.queryForObject(
+                "SELECT title FROM task_archive WHERE id = ?", String.class, oldCompleted.getId()));
+        assertTrue(meterRegistry.get("task.archive.moved").tag("reason", "completed").counter().count() >= 1);
+        assertTrue(meterRegistry.get("task.archive.batch").tag("reason", "inactive").timer().count() >= 2);
+    }
+
+    @Test
+    void archiveBatch_ShouldEvictArchivedTaskFromSecondLevelCache() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", oldCompleted.getId())).andExpect(status().isOk());
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, oldCompleted.getId()));
+
+        taskArchiver.archiveBatch(ArchiveReason.COMPLETED);
+
+        assertFalse(entityManagerFactory.getCache().contains(Task.class, oldCompleted.getId()));
+        mockMvc.perform(get("/api/v1/tasks/{id}", oldCompleted.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void archiveBatch_OfCompletedTasks_ShouldChangeListETags() throws Exception {
+        String allTasks = mockMvc.perform(get("/api/v1/tasks"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String ownerTasks = mockMvc.perform(get("/api/v1/user/{username}", "archiveOwner"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Перенесённая задача обновлялась давно: max(updated_at) в task после переноса тот же
+        taskArchiver.archiveBatch(ArchiveReason.COMPLETED);
+
+        mockMvc.perform(get("/api/v1/tasks").header(HttpHeaders.IF_NONE_MATCH, allTasks))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/user/{username}", "archiveOwner").header(HttpHeaders.IF_NONE_MATCH, ownerTasks))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void includeArchived_ShouldReadArchivedTasksButNotSoftDeletedOnes() throws Exception {
+        taskArchiver.archiveBatch(ArchiveReason.INACTIVE);
+        taskArchiver.archiveBatch(ArchiveReason.COMPLETED);
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", oldCompleted.getId()).param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Old completed"));
+        mockMvc.perform(get("/api/v1/tasks/{id}", deleted.getId()).param("includeArchived", "true"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/v1/user/{username}", "archiveOwner"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/v1/user/{username}", "archiveOwner").param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[1].id").value(oldCompleted.getId()));
+        mockMvc.perform(get("/api/v1/user/{username}", "archiveOwner")
+                        .param("includeArchived", "true")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(oldCompleted.getId()));
+    }
+
+    private static Task task(String title, boolean completed, boolean active, User owner) {
+        return Task.builder()
+                .title(title)
+                .completed(completed)
+                .active(active)
+                .user(owner)
+                .build();
+    }
+}
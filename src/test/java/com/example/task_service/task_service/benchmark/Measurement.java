@@ -0,0 +1,61 @@
+package com.example.task_service.task_service.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Простой замер латентности и аллокаций на операцию в текущем потоке.
+ * Не заменяет JMH, но позволяет сравнивать варианты на реальной БД из Testcontainers.
+ */
+final class Measurement {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final double PERCENTILE_99 = 0.99;
+
+    private final String name;
+    private final long[] latenciesNanos;
+    private final long allocatedBytes;
+
+    private Measurement(String name, long[] latenciesNanos, long allocatedBytes) {
+        this.name = name;
+        this.latenciesNanos = latenciesNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    static Measurement run(String name, int warmupIterations, int iterations, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.get();
+        }
+        long[] latencies = new long[iterations];
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        long allocated = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(latencies);
+        return new Measurement(name, latencies, allocated);
+    }
+
+    double meanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(Arrays.stream(latenciesNanos).sum()) / (double) latenciesNanos.length;
+    }
+
+    long p99Micros() {
+        int index = (int) Math.ceil(latenciesNanos.length * PERCENTILE_99) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(latenciesNanos[index]);
+    }
+
+    long bytesPerOperation() {
+        return allocatedBytes / latenciesNanos.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-45s mean=%10.1f us  p99=%8d us  alloc=%12d B/op",
+                name, meanMicros(), p99Micros(), bytesPerOperation());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.task_service.task_service.benchmark;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Размер страницы задач в JSON, CBOR и Smile до и после gzip/deflate. CPU на те же варианты
+ * меряет PayloadEncodingBenchmark (JMH).
+ * Запуск: mvn -Pbenchmark test -Dtest=PayloadSizeBenchmarkTest
+ */
+@Tag("benchmark")
+class PayloadSizeBenchmarkTest {
+
+    private static final int[] PAGE_SIZES = {10, 100, 1000};
+
+    @Test
+    void comparePayloadSizes() throws IOException {
+        Map<String, ObjectWriter> writers = new LinkedHashMap<>();
+        writers.put("json", writer(new JsonFactory()));
+        writers.put("cbor", writer(new CBORFactory()));
+        writers.put("smile", writer(new SmileFactory()));
+
+        System.out.printf("%-6s %-6s %10s %10s %10s%n", "page", "format", "raw", "gzip", "deflate");
+        for (int pageSize : PAGE_SIZES) {
+            List<TaskDTO> page = tasks(pageSize);
+            byte[] json = writers.get("json").writeValueAsBytes(page);
+            for (Map.Entry<String, ObjectWriter> writer : writers.entrySet()) {
+                byte[] raw = writer.getValue().writeValueAsBytes(page);
+                int gzip = compressedSize(raw, true);
+                int deflate = compressedSize(raw, false);
+                System.out.printf("%-6d %-6s %10d %10d %10d%n", pageSize, writer.getKey(), raw.length, gzip, deflate);
+
+                assertTrue(raw.length <= json.length, writer.getKey() + " is larger than json");
+            }
+        }
+    }
+
+    // Тот же Jackson2ObjectMapperBuilder, что у HTTP-конвертеров (см. BinaryEncodingConfig)
+    private static ObjectWriter writer(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json().factory(factory).build()
+                .writerFor(new TypeReference<List<TaskDTO>>() { });
+    }
+
+    private static int compressedSize(byte[] body, boolean gzip) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+            out.write(body);
+        }
+        return buffer.size();
+    }
+
+    private static List<TaskDTO> tasks(int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+        return IntStream.range(0, count)
+                .mapToObj(i -> TaskDTO.builder()
+                        .id((long) i + 1)
+                        .title("Task " + i)
+                        .description("Description of task " + i)
+                        .completed(i % 2 == 0)
+                        .userUsername("user" + i % 50)
+                        .createdAt(now)
+                        .updatedAt(now.plusSeconds(i))
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.task_service.task_service.benchmark;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Вставка задач по одной (POST /task) против пакетной вставки (POST /tasks/batch).
+ * Одна операция - создание TASKS_PER_OPERATION задач, поэтому mean обратно пропорционально пропускной способности.
+ * Запуск: mvn -Pbenchmark test -Dtest=TaskBatchInsertBenchmarkTest
+ */
+@SpringBootTest(properties = {"logging.level.root=INFO", "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("benchmark")
+class TaskBatchInsertBenchmarkTest {
+
+    private static final int TASKS_PER_OPERATION = 200;
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 50;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        // Запросов здесь заметно больше, чем пропускают лимиты по умолчанию
+        registry.add("rate-limit.enabled", () -> false);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    private List<TaskDTO> tasks;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        userIdCache.invalidateAll();
+        User user = userRepository.save(User.builder()
+                .username("benchmarkUser")
+                .email("benchmark@example.com")
+                .password("password")
+                .active(true)
+                .build());
+
+        tasks = IntStream.range(0, TASKS_PER_OPERATION)
+                .mapToObj(i -> TaskDTO.builder()
+                        .title("Task " + i)
+                        .description("Description of task " + i)
+                        .userUsername(user.getUsername())
+                        .build())
+                .toList();
+    }
+
+    @Test
+    void compareSingleAndBatchInserts() {
+        List<byte[]> singleBodies = tasks.stream().map(this::toJson).toList();
+        byte[] batchBody = toJson(tasks);
+
+        List<Measurement> results = List.of(
+                Measurement.run(TASKS_PER_OPERATION + " x POST /task", WARMUP, ITERATIONS, () -> {
+                    singleBodies.forEach(body -> perform("/api/v1/task", body));
+                    return null;
+                }),
+                Measurement.run("POST /tasks/batch (" + TASKS_PER_OPERATION + ")", WARMUP, ITERATIONS,
+                        () -> perform("/api/v1/tasks/batch", batchBody))
+        );
+        results.forEach(System.out::println);
+    }
+
+    private Object perform(String url, byte[] body) {
+        try {
+            return mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk())
+                    .andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.task_service.task_service.benchmark;
+
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.mapper.TaskMapper;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пути чтения, которыми пользуется TaskService: задача по id - сущность через second-level cache
+ * (попадание и промах), списки - DTO-проекции с offset- и keyset-пагинацией.
+ * Запуск: mvn -Pbenchmark test -Dtest=TaskReadPathBenchmarkTest
+ */
+@SpringBootTest(properties = {"logging.level.root=INFO", "spring.jpa.show-sql=false"})
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("benchmark")
+class TaskReadPathBenchmarkTest {
+
+    private static final int TASKS_PER_USER = 5_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskMapper taskMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Long taskId;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        user = userRepository.save(User.builder()
+                .username("benchmarkUser")
+                .email("benchmark@example.com")
+                .password("password")
+                .active(true)
+                .build());
+
+        List<Integer> rows = IntStream.range(0, TASKS_PER_USER).boxed().toList();
+        jdbcTemplate.batchUpdate("INSERT INTO task (title, description, completed, active, created_at, updated_at, user_id) "
+                        + "VALUES (?, ?, ?, true, now(), now(), ?)", rows, 1_000,
+                (ps, i) -> {
+                    ps.setString(1, "Task " + i);
+                    ps.setString(2, "Description of task " + i);
+                    ps.setBoolean(3, i % 2 == 0);
+                    ps.setLong(4, user.getId());
+                });
+        jdbcTemplate.execute("ANALYZE task");
+        taskId = jdbcTemplate.queryForObject("SELECT max(id) FROM task", Long.class);
+    }
+
+    @Test
+    void compareServiceReadPaths() {
+        Pageable page = PageRequest.of(0, PAGE_SIZE, Sort.by("id"));
+        String username = user.getUsername();
+
+        // Оба пути должны отдавать одинаковый результат
+        assertEquals(findTaskById(), taskRepository.findActiveAsDTOAfter(taskId - 1, Limit.of(1)).get(0));
+        assertEquals(taskRepository.findAllActiveAsDTO(page).getContent(),
+                taskRepository.findActiveAsDTOAfter(0L, Limit.of(PAGE_SIZE)));
+
+        List<Measurement> results = List.of(
+                Measurement.run("getTaskById entity, second-level cache hit", WARMUP, ITERATIONS,
+                        this::findTaskById),
+                Measurement.run("getTaskById entity, second-level cache miss", WARMUP, ITERATIONS, () -> {
+                    entityManagerFactory.getCache().evictAll();
+                    return findTaskById();
+                }),
+                Measurement.run("getAllTasks(page=100) offset projection + count", WARMUP, ITERATIONS,
+                        () -> taskRepository.findAllActiveAsDTO(page).getContent()),
+                Measurement.run("getAllTasks(limit=100) keyset projection", WARMUP, ITERATIONS,
+                        () -> taskRepository.findActiveAsDTOAfter(0L, Limit.of(PAGE_SIZE + 1))),
+                Measurement.run("getTasksByUsername(5000) projection", WARMUP / 10, ITERATIONS / 10,
+                        () -> taskRepository.findActiveAsDTOByUsername(username))
+        );
+        results.forEach(System.out::println);
+    }
+
+    // Как в TaskService.getTaskById: ленивый user читается внутри транзакции
+    private TaskDTO findTaskById() {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                taskRepository.findById(taskId).map(taskMapper::toDTO).orElseThrow());
+    }
+}
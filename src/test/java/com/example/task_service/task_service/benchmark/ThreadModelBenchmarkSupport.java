@@ -0,0 +1,146 @@
+package com.example.task_service.task_service.benchmark;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Общая нагрузка для сравнения платформенных и виртуальных потоков Tomcat.
+ * CLIENTS параллельных клиентов (больше, чем потоков Tomcat по умолчанию) читают задачи через HTTP;
+ * на выходе - пропускная способность, p99 и число ответов 503 от DbConcurrencyLimiter.
+ */
+abstract class ThreadModelBenchmarkSupport {
+
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+    private static final int TASKS = 1_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("rate-limit.enabled", () -> false);
+        // Меряется DbConcurrencyLimiter, адаптивный лимит добавил бы свои 503
+        registry.add("adaptive-concurrency.enabled", () -> false);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        userIdCache.invalidateAll();
+        user = userRepository.save(User.builder()
+                .username("benchmarkUser")
+                .email("benchmark@example.com")
+                .password("password")
+                .active(true)
+                .build());
+        List<Integer> rows = IntStream.range(0, TASKS).boxed().toList();
+        jdbcTemplate.batchUpdate("INSERT INTO task (title, description, completed, active, created_at, updated_at, user_id) "
+                        + "VALUES (?, ?, false, true, now(), now(), ?)", rows, 1_000,
+                (ps, i) -> {
+                    ps.setString(1, "Task " + i);
+                    ps.setString(2, "Description of task " + i);
+                    ps.setLong(3, user.getId());
+                });
+    }
+
+    protected abstract String threadModel();
+
+    @Test
+    void measureThroughputAndTailLatency() throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/user/" + user.getUsername() + "?limit=50");
+        run(uri, WARMUP_REQUESTS_PER_CLIENT);
+
+        long start = System.nanoTime();
+        Result result = run(uri, REQUESTS_PER_CLIENT);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        System.out.printf("%-10s clients=%d  throughput=%8.1f req/s  p99=%6d ms  rejected=%d%n",
+                threadModel(), CLIENTS, latencies.length / seconds, TimeUnit.NANOSECONDS.toMillis(p99), result.rejected());
+    }
+
+    private Result run(URI uri, int requestsPerClient) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<Future<Result>> clients = new ArrayList<>();
+        // Клиенты на виртуальных потоках, чтобы сама нагрузка не упиралась в потоки теста
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[requestsPerClient];
+                    int rejected = 0;
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long begin = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - begin;
+                        if (response.statusCode() == 503) {
+                            rejected++;
+                        }
+                    }
+                    return new Result(latencies, rejected);
+                }));
+            }
+        }
+        long[] all = new long[CLIENTS * requestsPerClient];
+        int rejected = 0;
+        for (int c = 0; c < CLIENTS; c++) {
+            Result client = clients.get(c).get();
+            System.arraycopy(client.latenciesNanos(), 0, all, c * requestsPerClient, requestsPerClient);
+            rejected += client.rejected();
+        }
+        return new Result(all, rejected);
+    }
+
+    private record Result(long[] latenciesNanos, int rejected) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.task_service.task_service.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Запуск: mvn -Pbenchmark test -Dtest='*ThreadsBenchmarkTest'
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.root=INFO", "spring.jpa.show-sql=false", "spring.threads.virtual.enabled=true"})
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest extends ThreadModelBenchmarkSupport {
+
+    @Override
+    protected String threadModel() {
+        return "virtual";
+    }
+}
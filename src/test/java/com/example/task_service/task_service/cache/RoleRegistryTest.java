@@ -0,0 +1,68 @@
+package com.example.task_service.task_service.cache;
+
+import com.example.task_service.task_service.entity.Role;
+import com.example.task_service.task_service.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @InjectMocks
+    private RoleRegistry roleRegistry;
+
+    @Test
+    void find_AfterRefresh_ShouldNotQueryDatabase() {
+        when(roleRepository.findAll()).thenReturn(List.of(new Role(1L, "ADMIN", null), new Role(2L, "EMPLOYEE", null)));
+        roleRegistry.refresh();
+
+        Optional<Role> admin = roleRegistry.find("ADMIN");
+        Optional<Role> employee = roleRegistry.find("EMPLOYEE");
+
+        assertEquals(1L, admin.orElseThrow().getId());
+        assertEquals(2L, employee.orElseThrow().getId());
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void find_WhenRoleAddedLater_ShouldRefreshOnMiss() {
+        when(roleRepository.findAll())
+                .thenReturn(List.of(new Role(1L, "ADMIN", null)))
+                .thenReturn(List.of(new Role(1L, "ADMIN", null), new Role(3L, "AUDITOR", null)));
+        roleRegistry.refresh();
+
+        assertEquals(3L, roleRegistry.find("AUDITOR").orElseThrow().getId());
+        verify(roleRepository, times(2)).findAll();
+    }
+
+    @Test
+    void find_WhenRoleDoesNotExist_ShouldReturnEmpty() {
+        when(roleRepository.findAll()).thenReturn(List.of());
+
+        assertTrue(roleRegistry.find("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void find_WhenUnknownRoleRequestedRepeatedly_ShouldRefreshOncePerInterval() {
+        when(roleRepository.findAll()).thenReturn(List.of(new Role(1L, "ADMIN", null)));
+        roleRegistry.refresh();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(roleRegistry.find("UNKNOWN").isEmpty());
+        }
+        // Начальное чтение + одно перечитывание по промаху
+        verify(roleRepository, times(2)).findAll();
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.task_service.task_service.cache;
+
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Задача по id читается через регион "task": каждый путь изменения должен вытеснять или обновлять запись,
+// иначе GET вернёт устаревшую задачу до истечения TTL
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User owner;
+    private Task first;
+    private Task second;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+        entityManagerFactory.getCache().evictAll();
+
+        owner = userRepository.save(User.builder()
+                .username("cacheOwner")
+                .email("cache@example.com")
+                .password("password")
+                .active(true)
+                .build());
+        first = taskRepository.save(task("First"));
+        second = taskRepository.save(task("Second"));
+    }
+
+    @Test
+    void getTaskById_Twice_ShouldHitCacheAndReportStatistics() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        double hibernateHits = hibernateCacheRequests("hit");
+        double regionHits = regionGets("hit");
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isOk());
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, first.getId()));
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("First"));
+
+        assertTrue(hibernateCacheRequests("hit") > hibernateHits);
+        assertTrue(regionGets("hit") > regionHits);
+        assertTrue(hibernateCacheRequests("miss") >= 1);
+    }
+
+    @Test
+    void updateTask_ShouldReplaceCachedTask() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isOk());
+
+        TaskDTO update = TaskDTO.builder().title("Renamed").completed(true).build();
+        mockMvc.perform(put("/api/v1/{id}", first.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed"))
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void deleteTask_ShouldNotServeDeletedTaskFromCache() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/task/{id}", first.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulkComplete_ByIds_ShouldInvalidateTaskRegion() throws Exception {
+        cacheBoth();
+
+        bulk("/api/v1/tasks/bulk/complete", TaskBulkRequestDTO.builder().ids(List.of(first.getId())).build());
+
+        assertFalse(entityManagerFactory.getCache().contains(Task.class, first.getId()));
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId()))
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void bulkComplete_ByUsername_ShouldInvalidateTaskRegion() throws Exception {
+        cacheBoth();
+
+        bulk("/api/v1/tasks/bulk/complete", TaskBulkRequestDTO.builder().username(owner.getUsername()).build());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId()))
+                .andExpect(jsonPath("$.completed").value(true));
+        mockMvc.perform(get("/api/v1/tasks/{id}", second.getId()))
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void bulkDelete_ByIds_ShouldNotServeDeletedTasksFromCache() throws Exception {
+        cacheBoth();
+
+        bulk("/api/v1/tasks/bulk/delete", TaskBulkRequestDTO.builder().ids(List.of(first.getId())).build());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/tasks/{id}", second.getId())).andExpect(status().isOk());
+    }
+
+    // Нативный UPDATE ... RETURNING: регион не вытесняется Hibernate, это делает TaskService после коммита
+    @Test
+    void bulkDelete_ByUsername_ShouldEvictChangedTasksAfterCommit() throws Exception {
+        cacheBoth();
+
+        bulk("/api/v1/tasks/bulk/delete", TaskBulkRequestDTO.builder().username(owner.getUsername()).build());
+
+        assertFalse(entityManagerFactory.getCache().contains(Task.class, first.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Task.class, second.getId()));
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/tasks/{id}", second.getId())).andExpect(status().isNotFound());
+    }
+
+    private void cacheBoth() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", first.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/tasks/{id}", second.getId())).andExpect(status().isOk());
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, first.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, second.getId()));
+    }
+
+    private void bulk(String path, TaskBulkRequestDTO request) throws Exception {
+        mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+    }
+
+    // hibernate-micrometer: статистика второго уровня по региону
+    private double hibernateCacheRequests(String result) {
+        return meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "task")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    // JCacheMetrics: статистика самого региона Caffeine
+    private double regionGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "task")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private Task task(String title) {
+        return Task.builder()
+                .title(title)
+                .completed(false)
+                .active(true)
+                .user(owner)
+                .build();
+    }
+}
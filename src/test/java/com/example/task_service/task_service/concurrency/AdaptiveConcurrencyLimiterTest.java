@@ -0,0 +1,188 @@
+package com.example.task_service.task_service.concurrency;
+
+import com.example.task_service.task_service.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Окно из одного вызова, чтобы каждый замер сразу менял лимит
+    private AdaptiveConcurrencyProperties properties(int initialLimit) {
+        AdaptiveConcurrencyProperties properties = new AdaptiveConcurrencyProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setWindowSize(1);
+        properties.setMinWindowTime(Duration.ZERO);
+        return properties;
+    }
+
+    @Test
+    void gradientLimit_ShouldShrinkWhenLatencyGrowsAndGrowBackWhenItRecovers() {
+        GradientLimit limit = new GradientLimit(properties(20), clock::get);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS, 1_000);
+        }
+        int beforeSlowdown = limit.getLimit();
+        assertTrue(beforeSlowdown > 20);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(200 * MILLIS, 1_000);
+        }
+        int duringSlowdown = limit.getLimit();
+        assertTrue(duringSlowdown < beforeSlowdown / 2, "limit " + duringSlowdown);
+        assertTrue(duringSlowdown >= 4);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, 1_000);
+        }
+        assertTrue(limit.getLimit() > duringSlowdown);
+    }
+
+    @Test
+    void gradientLimit_WhenLoadIsFarBelowLimit_ShouldNotGrow() {
+        GradientLimit limit = new GradientLimit(properties(20), clock::get);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS, 2);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void gradientLimit_ConcurrentSamples_ShouldCloseWindowsWithoutLosingBounds() throws InterruptedException {
+        AdaptiveConcurrencyProperties properties = properties(20);
+        properties.setWindowSize(10);
+        GradientLimit limit = new GradientLimit(properties, clock::get);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 1_000; j++) {
+                    limit.onSample(10 * MILLIS, 1_000);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Окна закрывались под нагрузкой и лимит упёрся в потолок, не выйдя за него
+        assertEquals(properties.getMaxLimit(), limit.getLimit());
+    }
+
+    @Test
+    void limit_WhenLowPriorityShareIsTaken_ShouldShedListsButAdmitSingleReads() throws Throwable {
+        // Лимит 4: LOW получают половину - два слота
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(4), meterRegistry, clock::get);
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ProceedingJoinPoint blocking = joinPoint("listScan");
+            when(blocking.proceed()).thenAnswer(invocation -> {
+                entered.countDown();
+                release.await();
+                return null;
+            });
+            holders.add(Thread.ofVirtual().start(() -> {
+                try {
+                    limiter.limit(blocking);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        entered.await();
+
+        ProceedingJoinPoint rejected = joinPoint("listScan");
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, () -> limiter.limit(rejected));
+        assertEquals(Duration.ofSeconds(1), ex.getRetryAfter());
+        verify(rejected, never()).proceed();
+
+        ProceedingJoinPoint singleRead = joinPoint("singleRead");
+        when(singleRead.proceed()).thenReturn("task");
+        assertEquals("task", limiter.limit(singleRead));
+
+        release.countDown();
+        for (Thread holder : holders) {
+            holder.join();
+        }
+        assertEquals(0, limiter.getInflight());
+        assertEquals(1.0, meterRegistry.get("service.concurrency.rejected").tag("priority", "low").counter().count());
+        assertEquals(0.0, meterRegistry.get("service.concurrency.inflight").gauge().value());
+    }
+
+    @Test
+    void limit_NestedServiceCall_ShouldNotTakeSecondSlot() throws Throwable {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(4), meterRegistry, clock::get);
+        ProceedingJoinPoint inner = joinPoint("singleRead");
+        when(inner.proceed()).thenAnswer(invocation -> limiter.getInflight());
+        ProceedingJoinPoint outer = joinPoint("write");
+        when(outer.proceed()).thenAnswer(invocation -> limiter.limit(inner));
+
+        assertEquals(1, limiter.limit(outer));
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    void limit_ExemptMethod_ShouldNeitherTakeSlotNorSampleLatency() throws Throwable {
+        // Окно из одного вызова при лимите 1: любой замер сразу сдвинул бы лимит
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(1), meterRegistry, clock::get);
+        ProceedingJoinPoint stream = joinPoint("stream");
+        // Клиент читает ответ минуту
+        when(stream.proceed()).thenAnswer(invocation -> {
+            clock.addAndGet(60_000 * MILLIS);
+            return limiter.getInflight();
+        });
+
+        assertEquals(0, limiter.limit(stream));
+        assertEquals(1, limiter.getLimit());
+    }
+
+    private static ProceedingJoinPoint joinPoint(String method) throws NoSuchMethodException {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(Fixture.class.getDeclaredMethod(method));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        return joinPoint;
+    }
+
+    static class Fixture {
+        @ConcurrencyPriority(RequestPriority.LOW)
+        void listScan() {
+        }
+
+        @ConcurrencyPriority(RequestPriority.HIGH)
+        void singleRead() {
+        }
+
+        void write() {
+        }
+
+        @ConcurrencyLimitExempt
+        void stream() {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.task_service.task_service.concurrency;
+
+import com.example.task_service.task_service.datasource.ReadReplicaProperties;
+import com.example.task_service.task_service.datasource.ReplicaRoutingDataSource;
+import com.example.task_service.task_service.exception.DbConcurrencyLimitExceededException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DbConcurrencyLimiterTest {
+
+    private DbConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        DbConcurrencyProperties properties = new DbConcurrencyProperties();
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        properties.setReservedConnections(0);
+        limiter = new DbConcurrencyLimiter(properties, 1, new ReadReplicaProperties());
+    }
+
+    @Test
+    void constructor_ShouldLeaveConnectionsForBackgroundJobs() {
+        DbConcurrencyLimiter reserved = new DbConcurrencyLimiter(new DbConcurrencyProperties(), 10,
+                new ReadReplicaProperties());
+
+        assertEquals(6, reserved.availablePermits());
+        assertEquals(0, reserved.availableReplicaPermits());
+    }
+
+    @Test
+    void limit_WithReplicas_ShouldCountReadOnlyCallsAgainstReplicaPools() throws Throwable {
+        ReadReplicaProperties replicas = new ReadReplicaProperties();
+        replicas.setEnabled(true);
+        replicas.setUrls(List.of("jdbc:postgresql://replica-0/db", "jdbc:postgresql://replica-1/db"));
+        replicas.setMaximumPoolSize(5);
+        DbConcurrencyLimiter perPool = new DbConcurrencyLimiter(new DbConcurrencyProperties(), 10, replicas);
+        assertEquals(10, perPool.availableReplicaPermits());
+
+        perPool.limit(call("read", () -> {
+            assertEquals(9, perPool.availableReplicaPermits());
+            assertEquals(6, perPool.availablePermits());
+        }));
+        perPool.limit(call("write", () -> {
+            assertEquals(10, perPool.availableReplicaPermits());
+            assertEquals(5, perPool.availablePermits());
+        }));
+
+        // Read-your-writes: чтение уйдёт на primary и должно занять его слот
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            perPool.limit(call("read", () -> assertEquals(5, perPool.availablePermits())));
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+        }
+        assertEquals(10, perPool.availableReplicaPermits());
+        assertEquals(6, perPool.availablePermits());
+    }
+
+    @Test
+    void limit_NestedServiceCall_ShouldNotTakeSecondPermit() throws Throwable {
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        when(inner.proceed()).thenReturn("inner");
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> limiter.limit(inner));
+
+        assertEquals("inner", limiter.limit(outer));
+        assertEquals(1, limiter.availablePermits());
+    }
+
+    @Test
+    void limit_WhenAllPermitsTaken_ShouldRejectAfterTimeout() throws Throwable {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint blocking = mock(ProceedingJoinPoint.class);
+        when(blocking.proceed()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return null;
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.limit(blocking);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        entered.await();
+
+        ProceedingJoinPoint rejected = mock(ProceedingJoinPoint.class);
+        assertThrows(DbConcurrencyLimitExceededException.class, () -> limiter.limit(rejected));
+        verify(rejected, never()).proceed();
+
+        release.countDown();
+        holder.join();
+        assertNull(failure.get());
+        assertEquals(1, limiter.availablePermits());
+    }
+
+    @Test
+    void limit_WhenCallFails_ShouldReleasePermit() throws Throwable {
+        ProceedingJoinPoint failing = mock(ProceedingJoinPoint.class);
+        when(failing.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> limiter.limit(failing));
+        assertEquals(1, limiter.availablePermits());
+    }
+
+    private static ProceedingJoinPoint call(String methodName, Runnable body) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(SampleService.class.getMethod(methodName));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(new SampleService());
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            body.run();
+            return null;
+        });
+        return joinPoint;
+    }
+
+    static class SampleService {
+        @Transactional(readOnly = true)
+        public void read() {
+        }
+
+        @Transactional
+        public void write() {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.task_service.task_service.controller;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сжатие делает Tomcat, а не Spring MVC, поэтому проверка идёт через настоящий HTTP-сервер, а не MockMvc.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+class ResponseCompressionTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    // HttpClient не распаковывает ответ сам: Content-Encoding виден как есть
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+
+        User user = userRepository.save(User.builder()
+                .username("compressionUser")
+                .email("compression@example.com")
+                .password("password")
+                .active(true)
+                .build());
+        taskRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> Task.builder()
+                        .title("Task " + i)
+                        .description("Description of task " + i)
+                        .active(true)
+                        .user(user)
+                        .build())
+                .toList());
+        task = taskRepository.findAll().get(0);
+    }
+
+    @Test
+    void largeResponse_ShouldBeGzipped() throws Exception {
+        HttpResponse<byte[]> plain = get("/api/v1/tasks?size=100", MediaType.APPLICATION_JSON_VALUE, null);
+        HttpResponse<byte[]> gzipped = get("/api/v1/tasks?size=100", MediaType.APPLICATION_JSON_VALUE, "gzip");
+
+        assertEquals(200, gzipped.statusCode());
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(gzipped.body().length < plain.body().length / 2);
+    }
+
+    @Test
+    void largeCborResponse_ShouldBeGzipped() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/tasks?size=100", MediaType.APPLICATION_CBOR_VALUE, "gzip");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+    }
+
+    @Test
+    void smallResponse_ShouldNotBeCompressed() throws Exception {
+        HttpResponse<byte[]> response = get("/api/v1/tasks/" + task.getId(), MediaType.APPLICATION_JSON_VALUE, "gzip");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
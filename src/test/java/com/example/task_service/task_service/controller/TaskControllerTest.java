@@ -1,26 +1,41 @@
 package com.example.task_service.task_service.controller;
 
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
 import com.example.task_service.task_service.dto.TaskDTO;
 import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.encoding.BinaryEncodingConfig;
 import com.example.task_service.task_service.entity.User;
 import com.example.task_service.task_service.mapper.TaskMapper;
+import com.example.task_service.task_service.metrics.SqlStatementBudget;
 import com.example.task_service.task_service.repository.TaskRepository;
 import com.example.task_service.task_service.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -59,12 +74,16 @@ class TaskControllerTest {
     @Autowired
     private  TaskMapper taskMapper;
 
+    @Autowired
+    private UserIdCache userIdCache;
+
     @BeforeEach
     void setUp() {
         // Clear repositories
         taskRepository.deleteAll();
         userRepository.deleteAll();
-
+        // Пользователи пересоздаются в обход сервиса, закэшированные id больше не действительны
+        userIdCache.invalidateAll();
 
         testUser = User.builder()
                 .username("testUser")
@@ -101,6 +120,111 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[0].userUsername").value(testUser.getUsername()));
     }
 
+    @Test
+    void getAllTasks_ShouldRunSameStatementCountForAnyPageSize() throws Exception {
+        List<User> owners = userRepository.saveAll(IntStream.range(0, 5)
+                .mapToObj(i -> User.builder()
+                        .username("owner" + i)
+                        .email("owner" + i + "@example.com")
+                        .password("password")
+                        .active(true)
+                        .build())
+                .toList());
+        taskRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> Task.builder()
+                        .title("Task " + i)
+                        .completed(false)
+                        .active(true)
+                        .user(owners.get(i % owners.size()))
+                        .build())
+                .toList());
+
+        for (String size : List.of("5", "31")) {
+            // версия для ETag + страница + count, пользователи приходят в том же запросе
+            mockMvc.perform(get("/api/v1/tasks").param("size", size))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[1].userUsername").value("owner0"))
+                    .andExpect(SqlStatementBudget.atMost(3));
+        }
+    }
+
+    @Test
+    void getAllTasks_InCursorMode_ShouldReturnNextCursorHeader() throws Exception {
+        Task secondTask = taskRepository.save(Task.builder()
+                .title("Second Task")
+                .completed(false)
+                .active(true)
+                .user(testUser)
+                .build());
+
+        String nextCursor = mockMvc.perform(get("/api/v1/tasks").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(testTask.getId()))
+                .andExpect(header().exists("X-Next-Cursor"))
+                // версия для ETag + страница
+                .andExpect(header().string("X-Sql-Statement-Count", "2"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/v1/tasks").param("after", nextCursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(secondTask.getId()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllTasks_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks").param("after", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchTasks_ShouldRankTitleMatchesFirstAndPageByCursor() throws Exception {
+        taskRepository.save(Task.builder().title("Quarterly report").description("Numbers")
+                .active(true).user(testUser).build());
+        taskRepository.save(Task.builder().title("Call accountant").description("About the quarterly report")
+                .active(true).user(testUser).build());
+        taskRepository.save(Task.builder().title("Old report").active(false).user(testUser).build());
+
+        MvcResult firstPage = mockMvc.perform(get("/api/v1/tasks/search")
+                        .param("q", "quarterly report")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Quarterly report"))
+                .andExpect(jsonPath("$[0].userUsername").value(testUser.getUsername()))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        mockMvc.perform(get("/api/v1/tasks/search")
+                        .param("q", "quarterly report")
+                        .param("limit", "1")
+                        .param("after", firstPage.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Call accountant"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void searchTasks_WithUsernameAndActiveFilters_ShouldNarrowResults() throws Exception {
+        taskRepository.save(Task.builder().title("Old report").active(false).user(testUser).build());
+
+        mockMvc.perform(get("/api/v1/tasks/search")
+                        .param("q", "report")
+                        .param("username", testUser.getUsername())
+                        .param("active", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Old report"));
+
+        mockMvc.perform(get("/api/v1/tasks/search")
+                        .param("q", "report")
+                        .param("username", "nonExistentUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
     @Test
     void getTaskById_WhenTaskExists_ShouldReturnTask() throws Exception {
         mockMvc.perform(get("/api/v1/tasks/{id}", testTaskDTO.getId()))
@@ -111,6 +235,142 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.userUsername").value(testUser.getUsername()));
     }
 
+    @Test
+    void getTaskById_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        testTaskDTO.setTitle("Renamed Task");
+        mockMvc.perform(put("/api/v1/{id}", testTask.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTaskDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed Task"));
+    }
+
+    @Test
+    void getAllTasks_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/tasks"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/tasks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // Та же версия данных, но другой список или другая страница - другой ETag
+        mockMvc.perform(get("/api/v1/user/{username}", testUser.getUsername())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/tasks").param("page", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/tasks").param("limit", "5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/task/{id}", testTask.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/tasks").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateTask_WithIfMatch_ShouldRejectStaleVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        testTaskDTO.setTitle("First");
+        String newEtag = mockMvc.perform(put("/api/v1/{id}", testTask.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTaskDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("First"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        testTaskDTO.setTitle("Second");
+        mockMvc.perform(put("/api/v1/{id}", testTask.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTaskDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        // ETag из ответа PUT совпадает с тем, что отдаст GET
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()).header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAllTasks_WithCborAccept_ShouldReturnSameModelAsJson() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/v1/tasks").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<TaskDTO> tasks = Jackson2ObjectMapperBuilder.cbor().build()
+                .readValue(body, new TypeReference<List<TaskDTO>>() { });
+        assertEquals(1, tasks.size());
+        assertEquals(testTaskDTO.getTitle(), tasks.get(0).getTitle());
+        assertEquals(testUser.getUsername(), tasks.get(0).getUserUsername());
+        assertNotNull(tasks.get(0).getCreatedAt());
+    }
+
+    @Test
+    void createTask_WithSmileBody_ShouldAcceptAndReturnSmile() throws Exception {
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        MediaType smile = MediaType.parseMediaType(BinaryEncodingConfig.SMILE_VALUE);
+        testTaskDTO.setTitle("Smile Task");
+
+        byte[] body = mockMvc.perform(post("/api/v1/task")
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(smileMapper.writeValueAsBytes(testTaskDTO)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("Smile Task", smileMapper.readValue(body, TaskDTO.class).getTitle());
+    }
+
+    @Test
+    void getTaskById_WithCborAccept_ShouldReturnOwnETagAndVaryOnAccept() throws Exception {
+        String jsonEtag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborEtag = mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonEtag, cborEtag);
+
+        // JSON-ETag не подтверждает CBOR-копию, а 304 тоже несёт Vary
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId())
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+
+        // If-Match сверяет версию задачи, а не кодировку
+        testTaskDTO.setTitle("Updated From Cbor Read");
+        mockMvc.perform(put("/api/v1/{id}", testTask.getId())
+                        .header(HttpHeaders.IF_MATCH, cborEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTaskDTO)))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getTaskById_WhenTaskDoesNotExist_ShouldReturnNotFound() throws Exception {
         mockMvc.perform(get("/api/v1/tasks/{id}", 999L))
@@ -138,10 +398,98 @@ class TaskControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createTasks_ShouldCreateValidTasksAndRejectUnknownUsers() throws Exception {
+        TaskDTO rejected = TaskDTO.builder().title("Other").userUsername("nonExistentUser").build();
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testTaskDTO, rejected, testTaskDTO))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].task.id").isNumber())
+                .andExpect(jsonPath("$[0].task.userUsername").value(testUser.getUsername()))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[2].status").value("CREATED"));
+
+        assertEquals(3, taskRepository.count());
+    }
+
+    @Test
+    void createTasks_WithInvalidTitles_ShouldRejectOnlyThoseItems() throws Exception {
+        TaskDTO noTitle = TaskDTO.builder().userUsername(testUser.getUsername()).build();
+        TaskDTO longTitle = TaskDTO.builder().title("x".repeat(101)).userUsername(testUser.getUsername()).build();
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(noTitle, testTaskDTO, longTitle))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"));
+
+        assertEquals(2, taskRepository.count());
+    }
+
+    @Test
+    void createTasks_ShouldStayWithinStatementBudgetRegardlessOfBatchSize() throws Exception {
+        List<TaskDTO> tasks = IntStream.range(0, 10)
+                .mapToObj(i -> TaskDTO.builder().title("Task " + i).userUsername(testUser.getUsername()).build())
+                .toList();
+        // id пользователя + по nextval и батчу INSERT для задач и для outbox + upsert счётчиков на пользователя,
+        // а не запросы на каждую задачу
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tasks)))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatementBudget.atMost(7));
+    }
+
+    @Test
+    void createTasks_WithEmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void completeTasks_ByIds_ShouldReportAffectedAndEvictCachedTasks() throws Exception {
+        // Задача попадает в second-level cache до массового UPDATE
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(jsonPath("$.completed").value(false));
+
+        TaskBulkRequestDTO request = TaskBulkRequestDTO.builder().ids(List.of(testTask.getId(), 999L)).build();
+        mockMvc.perform(post("/api/v1/tasks/bulk/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void deleteTasks_ByUsername_ShouldDeactivateAllUserTasks() throws Exception {
+        TaskBulkRequestDTO request = TaskBulkRequestDTO.builder().username(testUser.getUsername()).build();
+        mockMvc.perform(post("/api/v1/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getTasksByUser_ShouldReturnUserTasks() throws Exception {
+        // версия для ETag + задачи с именем пользователя одним запросом
         mockMvc.perform(get("/api/v1/user/{username}", testUser.getUsername()))
                 .andExpect(status().isOk())
+                .andExpect(SqlStatementBudget.atMost(2))
                 .andExpect(jsonPath("$[0].title").value(testTaskDTO.getTitle()))
                 .andExpect(jsonPath("$[0].description").value(testTaskDTO.getDescription()))
                 .andExpect(jsonPath("$[0].completed").value(testTaskDTO.isCompleted()))
@@ -156,6 +504,47 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void getTasksByUser_ShouldSkipInactiveTasks() throws Exception {
+        testTask.setActive(false);
+        taskRepository.save(testTask);
+
+        mockMvc.perform(get("/api/v1/user/{username}", testUser.getUsername()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void streamTasksByUser_AsNdjson_ShouldWriteOneTaskPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/user/{username}/stream", testUser.getUsername())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(testTask.getId(),
+                objectMapper.readValue(lines[0], TaskDTO.class).getId());
+    }
+
+    @Test
+    void streamTasksByUser_AsJsonArray_ShouldReturnArray() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/user/{username}/stream", testUser.getUsername())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value(testTaskDTO.getTitle()))
+                .andExpect(jsonPath("$[0].userUsername").value(testUser.getUsername()));
+    }
+
     @Test
     void updateTask_WhenTaskExists_ShouldUpdateAndReturnTask() throws Exception {
         testTaskDTO.setTitle("Updated Title");
@@ -171,6 +560,22 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.userUsername").value(testUser.getUsername()));
     }
 
+    @Test
+    void getTaskById_AfterUpdate_ShouldNotReturnStaleCachedTask() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(jsonPath("$.title").value("Test Task"));
+
+        testTaskDTO.setTitle("Renamed Task");
+        mockMvc.perform(put("/api/v1/{id}", testTask.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTaskDTO)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", testTask.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed Task"));
+    }
+
     @Test
     void updateTask_WhenTaskDoesNotExist_ShouldReturnNotFound() throws Exception {
         mockMvc.perform(put("/api/v1/{id}", 999L)
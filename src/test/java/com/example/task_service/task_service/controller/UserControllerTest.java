@@ -1,9 +1,11 @@
 package com.example.task_service.task_service.controller;
 
+import com.example.task_service.task_service.cache.RoleRegistry;
 import com.example.task_service.task_service.dto.UserDTO;
 import com.example.task_service.task_service.entity.Role;
 import com.example.task_service.task_service.entity.User;
 import com.example.task_service.task_service.mapper.UserMapper;
+import com.example.task_service.task_service.metrics.SqlStatementBudget;
 import com.example.task_service.task_service.repository.RoleRepository;
 import com.example.task_service.task_service.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -22,6 +25,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -58,6 +62,9 @@ class UserControllerTest {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     private User testUser;
     private UserDTO testUserDTO;
     private Role testRole;
@@ -73,6 +80,8 @@ class UserControllerTest {
                 .name("ROLE_ADMIN")
                 .build();
         roleRepository.save(testRole);
+        // Роли пересозданы в обход сервиса, реестр нужно перечитать
+        roleRegistry.refresh();
 
         // Create test user
         testUser = User.builder()
@@ -97,6 +106,57 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].roles[0]").value("ROLE_ADMIN"));
     }
 
+    @Test
+    void getAllUsers_ShouldLoadRolesWithoutQueryPerUser() throws Exception {
+        Role userRole = roleRepository.save(Role.builder().name("ROLE_USER").build());
+        roleRegistry.refresh();
+        userRepository.saveAll(IntStream.range(0, 20)
+                .mapToObj(i -> User.builder()
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .password("password")
+                        .active(true)
+                        .roles(Set.of(testRole, userRole))
+                        .build())
+                .toList());
+
+        // версия для ETag + страница id + count + пользователи с ролями одним запросом
+        mockMvc.perform(get("/api/v1/users").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[19].roles.length()").value(2))
+                .andExpect(SqlStatementBudget.atMost(4));
+
+        // версия для ETag + страница id + пользователи с ролями
+        mockMvc.perform(get("/api/v1/users").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].username").value(testUser.getUsername()))
+                .andExpect(jsonPath("$[19].roles.length()").value(2))
+                .andExpect(SqlStatementBudget.atMost(3));
+    }
+
+    @Test
+    void getAllUsers_WithCurrentETag_ShouldReturnNotModifiedUntilRolesChange() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        roleRepository.save(Role.builder().name("ROLE_USER").build());
+        roleRegistry.refresh();
+        mockMvc.perform(post("/api/v1/{username}/roles", testUser.getUsername())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Set.of("ROLE_USER"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roles[0]").value("ROLE_USER"));
+    }
+
     @Test
     void findByUsername_WhenUserExists_ShouldReturnUser() throws Exception {
         mockMvc.perform(get("/api/v1/users/{username}", testUser.getUsername()))
@@ -0,0 +1,159 @@
+package com.example.task_service.task_service.counters;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class TaskCountersTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskCounterReconciler reconciler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+        owner = userRepository.save(User.builder()
+                .username("counterOwner")
+                .email("counter@example.com")
+                .password("password")
+                .active(true)
+                .build());
+    }
+
+    @Test
+    void taskCounts_ShouldFollowEveryKindOfWrite() throws Exception {
+        expectCounts(0, 0, 0, 0);
+
+        long first = createTask("First", false);
+        long second = createTask("Second", false);
+        createTask("Third", true);
+        expectCounts(3, 2, 1, 3);
+
+        TaskDTO update = TaskDTO.builder().title("First").completed(true).build();
+        mockMvc.perform(put("/api/v1/{id}", first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        expectCounts(3, 1, 2, 3);
+
+        mockMvc.perform(delete("/api/v1/task/{id}", second)).andExpect(status().isOk());
+        expectCounts(3, 0, 2, 2);
+
+        mockMvc.perform(post("/api/v1/tasks/bulk/incomplete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                TaskBulkRequestDTO.builder().username("counterOwner").build())))
+                .andExpect(status().isOk());
+        expectCounts(3, 2, 0, 2);
+
+        mockMvc.perform(post("/api/v1/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                TaskBulkRequestDTO.builder().username("counterOwner").build())))
+                .andExpect(status().isOk());
+        expectCounts(3, 0, 0, 0);
+    }
+
+    @Test
+    void taskCounts_ForUnknownUser_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/v1/user/{username}/task-counts", "ghost"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reconcile_ShouldRepairDriftedCounters() throws Exception {
+        createTask("First", false);
+        createTask("Second", true);
+        jdbcTemplate.update("UPDATE user_task_counters SET total_count = 10, open_count = 7 WHERE user_id = ?",
+                owner.getId());
+        expectCounts(10, 7, 1, 2);
+
+        reconciler.reconcileAll();
+
+        expectCounts(2, 1, 1, 2);
+        assertTrue(meterRegistry.get("task.counters.reconciled").counter().count() >= 1);
+    }
+
+    private long createTask(String title, boolean completed) throws Exception {
+        TaskDTO task = TaskDTO.builder().title(title).completed(completed).userUsername("counterOwner").build();
+        String body = mockMvc.perform(post("/api/v1/task")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, TaskDTO.class).getId();
+    }
+
+    private ResultActions expectCounts(long total, long open, long completed, long active) throws Exception {
+        return mockMvc.perform(get("/api/v1/user/{username}/task-counts", "counterOwner"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(total))
+                .andExpect(jsonPath("$.open").value(open))
+                .andExpect(jsonPath("$.completed").value(completed))
+                .andExpect(jsonPath("$.active").value(active));
+    }
+}
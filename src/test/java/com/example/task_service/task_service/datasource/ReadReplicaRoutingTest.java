@@ -0,0 +1,188 @@
+package com.example.task_service.task_service.datasource;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Два независимых контейнера вместо настоящей потоковой репликации: строки, которые есть только на "реплике"
+ * или только на primary, показывают, куда ушёл запрос.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    private static final long REPLICA_ONLY_ID = 900_001L;
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("read-replicas.enabled", () -> "true");
+        registry.add("read-replicas.urls[0]", REPLICA::getJdbcUrl);
+        registry.add("read-replicas.username", REPLICA::getUsername);
+        registry.add("read-replicas.password", REPLICA::getPassword);
+        // Проверки вызываются из теста
+        registry.add("read-replicas.health-check-interval", () -> "1h");
+    }
+
+    private static JdbcTemplate replicaJdbc;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private ReplicaHealthChecker replicaHealthChecker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void migrateReplica() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword());
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db.changelog/main-changelog.xml");
+        liquibase.setContexts("test");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        replicaJdbc = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+        userRepository.save(User.builder()
+                .username("primaryUser")
+                .email("primary@example.com")
+                .password("password")
+                .active(true)
+                .build());
+
+        replicaJdbc.update("DELETE FROM task");
+        replicaJdbc.update("DELETE FROM users");
+        replicaJdbc.update("INSERT INTO users (id, username, email, password, active, created_at, updated_at) "
+                + "VALUES (?, 'replicaUser', 'replica@example.com', 'password', true, now(), now())", REPLICA_ONLY_ID);
+        replicaJdbc.update("INSERT INTO task (id, title, completed, active, created_at, updated_at, user_id) "
+                + "VALUES (?, 'Replica Task', false, true, now(), now(), ?)", REPLICA_ONLY_ID, REPLICA_ONLY_ID);
+
+        replicaHealthChecker.check();
+    }
+
+    @Test
+    void readOnlyRequest_ShouldBeServedByReplica() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks/{id}", REPLICA_ONLY_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Replica Task"));
+    }
+
+    @Test
+    void readAfterWrite_ShouldGoToPrimaryForSameClientOnly() throws Exception {
+        TaskDTO task = new TaskDTO();
+        task.setTitle("Written Task");
+        task.setUserUsername("primaryUser");
+
+        MockHttpServletResponse written = mockMvc.perform(post("/api/v1/task")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        Cookie cookie = written.getCookie("X-Primary-Until");
+        String token = written.getHeader("X-Primary-Until");
+        assertNotNull(cookie);
+        assertEquals(token, cookie.getValue());
+
+        mockMvc.perform(get("/api/v1/user/{username}", "primaryUser").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Written Task"));
+        mockMvc.perform(get("/api/v1/user/{username}", "primaryUser").header("X-Primary-Until", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        // Без токена (другой клиент) и с токеном, выписанным не сервисом, - реплика, куда запись (в тесте) не доезжает
+        mockMvc.perform(get("/api/v1/user/{username}", "primaryUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        String until = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+        for (String forged : List.of(until, Long.parseLong(until) + 1_000 + "." + signature, until + ".forged")) {
+            mockMvc.perform(get("/api/v1/user/{username}", "primaryUser").header("X-Primary-Until", forged))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+    }
+
+    @Test
+    void unhealthyReplica_ShouldBeSkippedInFavourOfPrimary() throws Exception {
+        replicaRoutingDataSource.getReplicas().get(0).setHealthy(false);
+
+        mockMvc.perform(get("/api/v1/tasks/{id}", REPLICA_ONLY_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void healthCheck_ShouldPublishReplicaLag() {
+        assertEquals(0.0, meterRegistry.get("datasource.replica.lag").tag("replica", "replica-0").gauge().value());
+        assertEquals(1.0, meterRegistry.get("datasource.replica.healthy").tag("replica", "replica-0").gauge().value());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.task_service.task_service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstConnection = mock(Connection.class);
+    private final Connection secondConnection = mock(Connection.class);
+
+    private DataSource primary;
+    private HikariDataSource firstPool;
+    private ReadReplica first;
+    private ReadReplica second;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        firstPool = mock(HikariDataSource.class);
+        when(firstPool.getConnection()).thenReturn(firstConnection);
+        HikariDataSource secondPool = mock(HikariDataSource.class);
+        when(secondPool.getConnection()).thenReturn(secondConnection);
+
+        first = new ReadReplica("replica-0", firstPool);
+        second = new ReadReplica("replica-1", secondPool);
+        first.setHealthy(true);
+        second.setHealthy(true);
+        routing = new ReplicaRoutingDataSource(primary, List.of(first, second));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.unpin();
+    }
+
+    @Test
+    void getConnection_ShouldAlternateHealthyReplicas() throws SQLException {
+        assertSame(firstConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(firstConnection, routing.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldSkipUnhealthyReplica() throws SQLException {
+        first.setHealthy(false);
+
+        assertSame(secondConnection, routing.getConnection());
+        assertSame(secondConnection, routing.getConnection());
+    }
+
+    @Test
+    void getConnection_WhenReplicaFails_ShouldTakeItOutOfRotationAndUseNext() throws SQLException {
+        when(firstPool.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(secondConnection, routing.getConnection());
+        assertFalse(first.isHealthy());
+        assertSame(secondConnection, routing.getConnection());
+        verify(firstPool, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_WhenNoReplicaIsHealthy_ShouldFallBackToPrimary() throws SQLException {
+        first.setHealthy(false);
+        second.setHealthy(false);
+
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void getConnection_WhenPinned_ShouldUsePrimary() throws SQLException {
+        ReplicaRoutingDataSource.pinToPrimary();
+
+        assertSame(primaryConnection, routing.getConnection());
+
+        ReplicaRoutingDataSource.unpin();
+        assertSame(firstConnection, routing.getConnection());
+    }
+
+    @Test
+    void getConnection_WithExplicitCredentials_ShouldUsePrimary() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(primary.getConnection("reporting", "secret")).thenReturn(connection);
+
+        assertSame(connection, routing.getConnection("reporting", "secret"));
+        verify(firstPool, never()).getConnection();
+    }
+}
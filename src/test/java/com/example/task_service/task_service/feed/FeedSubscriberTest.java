@@ -0,0 +1,63 @@
+package com.example.task_service.task_service.feed;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedSubscriberTest {
+
+    private final FeedSubscriber subscriber = new FeedSubscriber(1L, new SseEmitter(), 3);
+
+    @Test
+    void resume_ShouldSendReplayBeforeLiveFramesWithoutDuplicates() {
+        assertEquals(FeedSubscriber.Offer.QUEUED, subscriber.offer(frame(3)));
+        assertEquals(FeedSubscriber.Offer.QUEUED, subscriber.offer(frame(2)));
+
+        assertEquals(FeedSubscriber.Offer.SCHEDULE, subscriber.resume(List.of(frame(1), frame(2))));
+
+        assertEquals(1, subscriber.next().outboxId());
+        assertEquals(2, subscriber.next().outboxId());
+        assertEquals(3, subscriber.next().outboxId());
+        assertNull(subscriber.next());
+    }
+
+    @Test
+    void offer_ShouldScheduleWriterOnlyWhenNoneIsRunning() {
+        subscriber.resume(List.of());
+
+        assertEquals(FeedSubscriber.Offer.SCHEDULE, subscriber.offer(frame(1)));
+        assertEquals(FeedSubscriber.Offer.QUEUED, subscriber.offer(frame(2)));
+        subscriber.next();
+        subscriber.next();
+        // Очередь вычерпана, писатель завершился - следующий кадр снова запускает запись
+        assertNull(subscriber.next());
+        assertEquals(FeedSubscriber.Offer.SCHEDULE, subscriber.offer(frame(3)));
+    }
+
+    @Test
+    void offer_WhenBufferIsFull_ShouldReportOverflow() {
+        subscriber.offer(frame(1));
+        subscriber.offer(frame(2));
+        subscriber.offer(frame(3));
+
+        assertEquals(FeedSubscriber.Offer.OVERFLOW, subscriber.offer(frame(4)));
+    }
+
+    @Test
+    void close_ShouldDropQueuedFramesAndRejectNewOnes() {
+        subscriber.offer(frame(1));
+
+        assertTrue(subscriber.close());
+        assertFalse(subscriber.close());
+        assertEquals(FeedSubscriber.Offer.CLOSED, subscriber.offer(frame(2)));
+        assertNull(subscriber.next());
+    }
+
+    private static FeedFrame frame(long outboxId) {
+        return new FeedFrame(outboxId, Set.of());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.task_service.task_service.feed;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.TaskOutboxEvent;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.outbox.TaskOutboxPublisher;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.repository.TaskOutboxRepository;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.example.task_service.task_service.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Издатель outbox и хаб запускаются только явными вызовами drain()/poll()
+@SpringBootTest(properties = {
+        "task.outbox.linger=PT1H",
+        "task.events.poll-interval=PT1H",
+        "task.events.heartbeat-interval=PT1H"
+})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class TaskEventHubTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskOutboxPublisher publisher;
+
+    @Autowired
+    private TaskEventHub hub;
+
+    @Autowired
+    private TaskOutboxRepository outboxRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+
+        userRepository.save(User.builder()
+                .username("feedUser")
+                .email("feed@example.com")
+                .password("password")
+                .active(true)
+                .build());
+    }
+
+    @Test
+    void subscribe_ShouldPushPublishedTaskChanges() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/user/{username}/events", "feedUser"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        TaskDTO created = createTask("Live");
+        taskService.deleteTask(created.getId());
+        publisher.drain();
+        hub.poll();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            String body = result.getResponse().getContentAsString();
+            assertTrue(body.contains("event:CREATED"));
+            assertTrue(body.contains("\"title\":\"Live\""));
+            assertTrue(body.contains("event:DELETED"));
+        });
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.indexOf("event:CREATED") < body.indexOf("event:DELETED"));
+    }
+
+    @Test
+    void subscribe_ShouldPushEventsOfBulkOperations() throws Exception {
+        TaskDTO first = createTask("Bulk first");
+        TaskDTO second = createTask("Bulk second");
+        MvcResult result = mockMvc.perform(get("/api/v1/user/{username}/events", "feedUser"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(first.getId())).build(), true);
+        taskService.deleteTasks(TaskBulkRequestDTO.builder().username("feedUser").build());
+        publisher.drain();
+        hub.poll();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            String body = result.getResponse().getContentAsString();
+            assertTrue(body.contains("event:UPDATED"));
+            assertTrue(body.contains("\"completed\":true"));
+            assertTrue(body.contains("\"taskId\":" + first.getId() + ","));
+            assertTrue(body.contains("\"taskId\":" + second.getId() + ","));
+            assertEquals(2, body.split("event:DELETED", -1).length - 1);
+        });
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldReplayEventsPublishedAfterIt() throws Exception {
+        TaskDTO first = createTask("First");
+        createTask("Second");
+        publisher.drain();
+        TaskOutboxEvent firstEvent = outboxRepository.findAll().stream()
+                .filter(event -> event.getTaskId().equals(first.getId()))
+                .findFirst()
+                .orElseThrow();
+
+        MvcResult result = mockMvc.perform(get("/api/v1/user/{username}/events", "feedUser")
+                        .header("Last-Event-ID", CursorCodec.encode(firstEvent.getPublishedAt(), firstEvent.getId())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertTrue(result.getResponse().getContentAsString().contains("\"title\":\"Second\"")));
+        assertFalse(result.getResponse().getContentAsString().contains("\"title\":\"First\""));
+    }
+
+    @Test
+    void subscribe_WithUnknownUser_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/v1/user/{username}/events", "ghost"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void subscribe_WithMalformedLastEventId_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/user/{username}/events", "feedUser").header("Last-Event-ID", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private TaskDTO createTask(String title) {
+        return taskService.createTask(TaskDTO.builder().title(title).userUsername("feedUser").build());
+    }
+}
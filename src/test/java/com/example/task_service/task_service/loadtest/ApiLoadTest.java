@@ -0,0 +1,47 @@
+package com.example.task_service.task_service.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+/**
+ * Смеси read-heavy / write-heavy / bulk-users в closed- и open-loop режимах.
+ * Лимиты здесь сняты, чтобы мерить сам сервис; его поведение под нагрузкой - в RateLimiterSaturationLoadTest.
+ * Запуск: mvn -Ploadtest test -Dtest=ApiLoadTest -Dloadtest.mixes=read-heavy -Dloadtest.modes=open -Dloadtest.rate=500
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.root=WARN", "spring.jpa.show-sql=false", "rate-limit.enabled=false",
+                "adaptive-concurrency.enabled=false"})
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("loadtest")
+class ApiLoadTest extends LoadTestSupport {
+
+    @Test
+    void runConfiguredWorkloads() {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        for (Workload workload : config.mixes()) {
+            for (LoadMode mode : config.modes()) {
+                LoadGenerator generator = new LoadGenerator(context);
+                run(generator, workload, mode, config, config.warmup());
+                long start = System.nanoTime();
+                LoadReport report = run(generator, workload, mode, config, config.duration());
+                String title = workload + " / " + mode + (mode == LoadMode.OPEN
+                        ? " @ " + config.ratePerSecond() + " req/s"
+                        : " x " + config.concurrency() + " clients");
+                report.print(System.out, title, Duration.ofNanos(System.nanoTime() - start));
+            }
+        }
+    }
+
+    private LoadReport run(LoadGenerator generator, Workload workload, LoadMode mode, LoadTestConfig config,
+                           Duration duration) {
+        return mode == LoadMode.OPEN
+                ? generator.runOpen(workload::next, config.ratePerSecond(), duration)
+                : generator.runClosed(workload::next, config.concurrency(), duration);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.task_service.task_service.loadtest;
+
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Что известно генератору о засеянных данных: базовый URL, число пользователей и диапазон id задач.
+ */
+record LoadContext(URI baseUri, int users, long minTaskId, long maxTaskId) {
+
+    URI uri(String pathAndQuery) {
+        return baseUri.resolve(pathAndQuery);
+    }
+
+    String randomUsername() {
+        return "user" + (ThreadLocalRandom.current().nextInt(users) + 1);
+    }
+
+    long randomTaskId() {
+        return ThreadLocalRandom.current().nextLong(minTaskId, maxTaskId + 1);
+    }
+}
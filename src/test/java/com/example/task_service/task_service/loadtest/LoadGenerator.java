@@ -0,0 +1,83 @@
+package com.example.task_service.task_service.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * HTTP-нагрузка по смеси операций. Запросы выполняются на виртуальных потоках,
+ * так что число одновременных запросов ограничено только самой моделью нагрузки.
+ */
+final class LoadGenerator {
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LoadContext context;
+
+    LoadGenerator(LoadContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Closed loop: concurrency клиентов без пауз между запросами; латентность - от фактической отправки.
+     */
+    LoadReport runClosed(Supplier<Operation> operations, int concurrency, Duration duration) {
+        LoadReport report = new LoadReport();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(operations.get(), System.nanoTime(), report);
+                    }
+                });
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Open loop: ratePerSecond запросов в секунду по расписанию; латентность - от запланированного момента,
+     * поэтому если сервис не успевает, рост очереди отражается в перцентилях.
+     */
+    LoadReport runOpen(Supplier<Operation> operations, int ratePerSecond, Duration duration) {
+        LoadReport report = new LoadReport();
+        long intervalNanos = 1_000_000_000L / ratePerSecond;
+        long start = System.nanoTime();
+        long requests = duration.toNanos() / intervalNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Operation operation = operations.get();
+                executor.submit(() -> send(operation, intendedStart, report));
+            }
+        }
+        return report;
+    }
+
+    private void send(Operation operation, long startNanos, LoadReport report) {
+        String outcome;
+        try {
+            HttpResponse<Void> response = httpClient.send(operation.request().apply(context),
+                    HttpResponse.BodyHandlers.discarding());
+            outcome = LoadReport.outcome(response.statusCode());
+        } catch (IOException e) {
+            outcome = "io-error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        report.record(operation.name(), outcome, System.nanoTime() - startNanos);
+    }
+}
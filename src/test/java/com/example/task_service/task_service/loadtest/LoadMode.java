@@ -0,0 +1,9 @@
+package com.example.task_service.task_service.loadtest;
+
+enum LoadMode {
+    // Фиксированное число клиентов, каждый шлёт следующий запрос после ответа на предыдущий
+    CLOSED,
+    // Запросы приходят с заданной частотой независимо от ответов; латентность считается от запланированного
+    // момента отправки, поэтому очередь перед сервисом видна в перцентилях (без coordinated omission)
+    OPEN
+}
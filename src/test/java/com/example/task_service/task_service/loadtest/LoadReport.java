@@ -0,0 +1,59 @@
+package com.example.task_service.task_service.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Латентность в HDR-гистограммах по паре (эндпоинт, исход): 2xx, 429, 4xx, 5xx, io-error.
+ * Исходы разделены, чтобы быстрые отказы лимитера не улучшали перцентили успешных запросов.
+ */
+final class LoadReport {
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    void record(String endpoint, String outcome, long latencyNanos) {
+        histograms.computeIfAbsent(endpoint + " " + outcome, key -> new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3))
+                .recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+    }
+
+    static String outcome(int statusCode) {
+        if (statusCode == 429) {
+            return "429";
+        }
+        return (statusCode / 100) + "xx";
+    }
+
+    long count(String endpoint, String outcome) {
+        Histogram histogram = histograms.get(endpoint + " " + outcome);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    void print(PrintStream out, String title, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.println();
+        out.println("=== " + title + " (" + elapsed.toSeconds() + " s) ===");
+        out.printf("%-42s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint / outcome", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            total += h.getTotalCount();
+            out.printf("%-42s %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), h.getTotalCount(),
+                    h.getTotalCount() / seconds, millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+        }
+        out.printf("%-42s %8d %9.1f%n", "total", total, total / seconds);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.task_service.task_service.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Параметры прогона из системных свойств loadtest.* (mvn -Ploadtest test -Dloadtest.rate=500 ...).
+ */
+record LoadTestConfig(List<Workload> mixes,
+                      List<LoadMode> modes,
+                      Duration duration,
+                      Duration warmup,
+                      int concurrency,
+                      int ratePerSecond) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Arrays.stream(System.getProperty("loadtest.mixes", "read-heavy,write-heavy,bulk-users").split(","))
+                        .map(name -> Workload.valueOf(enumName(name)))
+                        .toList(),
+                Arrays.stream(System.getProperty("loadtest.modes", "closed,open").split(","))
+                        .map(name -> LoadMode.valueOf(enumName(name)))
+                        .toList(),
+                duration("loadtest.duration", "30s"),
+                duration("loadtest.warmup", "10s"),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Integer.getInteger("loadtest.rate", 200));
+    }
+
+    private static String enumName(String value) {
+        return value.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    // "30s", "2m" -> Duration
+    private static Duration duration(String property, String defaultValue) {
+        return Duration.parse("PT" + System.getProperty(property, defaultValue).toUpperCase(Locale.ROOT));
+    }
+}
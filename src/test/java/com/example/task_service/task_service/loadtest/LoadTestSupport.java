@@ -0,0 +1,61 @@
+package com.example.task_service.task_service.loadtest;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.net.URI;
+
+/**
+ * Postgres из Testcontainers, засеянный пользователями и задачами, и запущенный на случайном порту сервис.
+ */
+abstract class LoadTestSupport {
+
+    protected static final int USERS = 1_000;
+    protected static final int TASKS = 100_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    protected LoadContext context;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        userIdCache.invalidateAll();
+        jdbcTemplate.update("INSERT INTO users (username, email, password, created_at, updated_at, active) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'password', now(), now(), true "
+                + "FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO task (title, description, completed, active, created_at, updated_at, user_id) "
+                + "SELECT 'Task ' || g, 'Description of task ' || g, false, true, now(), now(), u.id "
+                + "FROM generate_series(1, ?) g JOIN users u ON u.username = 'user' || (g % ? + 1)", TASKS, USERS);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+        Long minTaskId = jdbcTemplate.queryForObject("SELECT min(id) FROM task", Long.class);
+        Long maxTaskId = jdbcTemplate.queryForObject("SELECT max(id) FROM task", Long.class);
+        context = new LoadContext(URI.create("http://localhost:" + port), USERS, minTaskId, maxTaskId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.task_service.task_service.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.function.Function;
+
+/**
+ * Один вид запроса в смеси нагрузки; name - шаблон эндпоинта, под которым копится статистика.
+ */
+record Operation(String name, int weight, Function<LoadContext, HttpRequest> request) {
+}
@@ -0,0 +1,47 @@
+package com.example.task_service.task_service.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Политика task-reads, урезанная до 5 запросов за 10 с, под open-loop нагрузкой выше лимита от одного клиента:
+ * сколько запросов проходит, сколько получает 429 и сколько стоит отказ (ответ сразу, без ожидания разрешения).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.root=WARN", "spring.jpa.show-sql=false",
+                "rate-limit.enabled=true",
+                "rate-limit.policies.task-reads.limit=5",
+                "rate-limit.policies.task-reads.period=10s",
+                "rate-limit.policies.task-reads.burst=5"})
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("loadtest")
+class RateLimiterSaturationLoadTest extends LoadTestSupport {
+
+    private static final String ENDPOINT = "GET /tasks?after&limit";
+    private static final Duration DURATION = Duration.ofSeconds(30);
+
+    @Test
+    void overloadRateLimitedEndpoint() {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Operation listTasks = new Operation(ENDPOINT, 1,
+                ctx -> HttpRequest.newBuilder(ctx.uri("/api/v1/tasks?limit=20")).GET().build());
+
+        long start = System.nanoTime();
+        LoadReport report = new LoadGenerator(context).runOpen(() -> listTasks, Math.min(config.ratePerSecond(), 50), DURATION);
+        report.print(System.out, "task-reads rate limit saturation", Duration.ofNanos(System.nanoTime() - start));
+
+        // Одно разрешение каждые 2 с плюс начальные 5: всё остальное должно быть отклонено, а не поставлено в очередь
+        long accepted = report.count(ENDPOINT, "2xx");
+        assertTrue(accepted <= 5 * (DURATION.toSeconds() / 10 + 1), "accepted " + accepted);
+        assertTrue(report.count(ENDPOINT, "429") > 0);
+    }
+}
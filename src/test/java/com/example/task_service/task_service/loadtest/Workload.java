@@ -0,0 +1,83 @@
+package com.example.task_service.task_service.loadtest;
+
+import com.example.task_service.task_service.pagination.CursorCodec;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Смеси запросов с весами. Тела запросов собираются строками, чтобы сериализация не попадала в замер клиента.
+ */
+enum Workload {
+    READ_HEAVY(List.of(
+            new Operation("GET /tasks/{id}", 40, ctx -> get(ctx, "/api/v1/tasks/" + ctx.randomTaskId())),
+            new Operation("GET /user/{username}?limit", 25,
+                    ctx -> get(ctx, "/api/v1/user/" + ctx.randomUsername() + "?limit=20")),
+            new Operation("GET /tasks?after&limit", 15,
+                    ctx -> get(ctx, "/api/v1/tasks?limit=20&after=" + CursorCodec.encodeId(ctx.randomTaskId()))),
+            new Operation("GET /tasks/search", 10,
+                    ctx -> get(ctx, "/api/v1/tasks/search?limit=20&q=task+" + ctx.randomTaskId())),
+            new Operation("POST /task", 10, ctx -> post(ctx, "/api/v1/task", taskJson(ctx.randomUsername())))
+    )),
+    WRITE_HEAVY(List.of(
+            new Operation("POST /task", 40, ctx -> post(ctx, "/api/v1/task", taskJson(ctx.randomUsername()))),
+            new Operation("PUT /{id}", 20, ctx -> HttpRequest.newBuilder(ctx.uri("/api/v1/" + ctx.randomTaskId()))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(taskJson(ctx.randomUsername())))
+                    .build()),
+            new Operation("POST /tasks/batch", 10, ctx -> post(ctx, "/api/v1/tasks/batch",
+                    IntStream.range(0, 20).mapToObj(i -> taskJson(ctx.randomUsername()))
+                            .collect(Collectors.joining(",", "[", "]")))),
+            new Operation("POST /tasks/bulk/complete", 10, ctx -> post(ctx, "/api/v1/tasks/bulk/complete",
+                    IntStream.range(0, 50).mapToObj(i -> String.valueOf(ctx.randomTaskId()))
+                            .collect(Collectors.joining(",", "{\"ids\":[", "]}")))),
+            new Operation("DELETE /task/{id}", 5, ctx -> HttpRequest.newBuilder(ctx.uri("/api/v1/task/" + ctx.randomTaskId()))
+                    .DELETE()
+                    .build()),
+            new Operation("GET /tasks/{id}", 15, ctx -> get(ctx, "/api/v1/tasks/" + ctx.randomTaskId()))
+    )),
+    BULK_USERS(List.of(
+            new Operation("GET /users?after&limit=100", 50, ctx -> get(ctx, "/api/v1/users?limit=100&after="
+                    + CursorCodec.encodeId(ThreadLocalRandom.current().nextInt(ctx.users())))),
+            new Operation("GET /users?page&size=100", 20, ctx -> get(ctx, "/api/v1/users?size=100&page="
+                    + ThreadLocalRandom.current().nextInt(Math.max(1, ctx.users() / 100)))),
+            new Operation("GET /users/{username}", 30, ctx -> get(ctx, "/api/v1/users/" + ctx.randomUsername()))
+    ));
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    Workload(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    Operation next() {
+        int point = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up for " + this);
+    }
+
+    private static HttpRequest get(LoadContext ctx, String pathAndQuery) {
+        return HttpRequest.newBuilder(ctx.uri(pathAndQuery)).GET().build();
+    }
+
+    private static HttpRequest post(LoadContext ctx, String path, String json) {
+        return HttpRequest.newBuilder(ctx.uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String taskJson(String username) {
+        return "{\"title\":\"Load task\",\"description\":\"Created by load test\",\"userUsername\":\"" + username + "\"}";
+    }
+}
@@ -65,6 +65,7 @@ class TaskMapperTest {
         assertNotNull(result);
         assertEquals(taskDTO.getTitle(), result.getTitle());
         assertEquals(taskDTO.getDescription(), result.getDescription());
+        assertTrue(result.isActive());
         // Note: user mapping is not handled in toEntity as it's not in the mapping
     }
 
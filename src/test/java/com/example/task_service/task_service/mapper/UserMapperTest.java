@@ -1,9 +1,9 @@
 package com.example.task_service.task_service.mapper;
 
+import com.example.task_service.task_service.cache.RoleRegistry;
 import com.example.task_service.task_service.dto.UserDTO;
 import com.example.task_service.task_service.entity.Role;
 import com.example.task_service.task_service.entity.User;
-import com.example.task_service.task_service.repository.RoleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -20,7 +20,7 @@ public class UserMapperTest {
     private UserMapperImpl userMapper;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     private User user;
 
@@ -53,9 +53,9 @@ public class UserMapperTest {
     void testToEntity() {
         // Setup
         Set<String> roleNames = Set.of("ROLE_ADMIN");
-        when(roleRepository.findByName("ROLE_ADMIN")).thenReturn(java.util.Optional.of(new Role("ROLE_ADMIN")));
+        when(roleRegistry.find("ROLE_ADMIN")).thenReturn(java.util.Optional.of(new Role("ROLE_ADMIN")));
 
-        User userEntity = userMapper.toEntity(new UserDTO("Pavel22", "pavel@example.com", "1234", roleNames), roleRepository);
+        User userEntity = userMapper.toEntity(new UserDTO("Pavel22", "pavel@example.com", "1234", roleNames), roleRegistry);
 
         // Assertions
         assertNotNull(userEntity);
@@ -70,7 +70,7 @@ public class UserMapperTest {
         Set<String> roleNames = Set.of("ROLE_UNKNOWN");
 
         // Test and Assertions
-        assertThrows(RuntimeException.class, () -> userMapper.mapStringToRole(roleNames, roleRepository));
+        assertThrows(RuntimeException.class, () -> userMapper.mapStringToRole(roleNames, roleRegistry));
     }
 
     @Test
@@ -0,0 +1,27 @@
+package com.example.task_service.task_service.metrics;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Бюджет SQL-запросов для MockMvc-тестов: mockMvc.perform(...).andExpect(SqlStatementBudget.atMost(2)).
+ * Число берётся из счётчика SqlStatementMetricsFilter, поэтому работает и без заголовка X-Sql-Statement-Count.
+ */
+public final class SqlStatementBudget {
+
+    private SqlStatementBudget() {
+    }
+
+    public static ResultMatcher atMost(int maxStatements) {
+        return result -> {
+            SqlStatementCounter counter =
+                    (SqlStatementCounter) result.getRequest().getAttribute(SqlStatementCounter.REQUEST_ATTRIBUTE);
+            assertNotNull(counter, "SqlStatementMetricsFilter did not run for this request");
+            assertTrue(counter.getCount() <= maxStatements, () -> result.getRequest().getMethod() + " "
+                    + result.getRequest().getRequestURI() + " executed " + counter.getCount()
+                    + " SQL statements, budget is " + maxStatements);
+        };
+    }
+}
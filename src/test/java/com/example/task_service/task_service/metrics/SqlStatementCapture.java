@@ -0,0 +1,23 @@
+package com.example.task_service.task_service.metrics;
+
+import java.util.List;
+
+/**
+ * SQL, который Hibernate отправил в базу за время action, в порядке выполнения.
+ * Текст берётся у CountingStatementInspector - это ровно те запросы, что выполняются в проде.
+ */
+public final class SqlStatementCapture {
+
+    private SqlStatementCapture() {
+    }
+
+    public static List<String> capture(Runnable action) {
+        SqlStatementCounter counter = SqlStatementCounter.start(true);
+        try {
+            action.run();
+        } finally {
+            SqlStatementCounter.clear();
+        }
+        return counter.getStatements();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.task_service.task_service.outbox;
+
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
+import com.example.task_service.task_service.dto.TaskDTO;
+import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.repository.TaskOutboxRepository;
+import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.UserRepository;
+import com.example.task_service.task_service.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Плановый запуск издателя отодвинут на час: пачки публикуются только явным вызовом drain()
+@SpringBootTest(properties = "task.outbox.linger=PT1H")
+@Testcontainers
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class TaskOutboxPublisherTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskOutboxPublisher publisher;
+
+    @Autowired
+    private TaskOutboxRepository outboxRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        userIdCache.invalidateAll();
+
+        userRepository.save(User.builder()
+                .username("outboxUser")
+                .email("outbox@example.com")
+                .password("password")
+                .active(true)
+                .build());
+    }
+
+    @Test
+    void drain_ShouldPublishTaskChangesInOrderAndMarkThemPublished() {
+        TaskDTO created = createTask("First");
+        taskService.updateTask(created.getId(), TaskDTO.builder().title("Renamed").build());
+        taskService.deleteTask(created.getId());
+
+        publisher.drain();
+
+        List<TaskChangeEvent> published = events.stream(TaskChangeEvent.class).toList();
+        assertEquals(List.of(TaskEventType.CREATED, TaskEventType.UPDATED, TaskEventType.DELETED),
+                published.stream().map(TaskChangeEvent::getType).toList());
+        assertTrue(published.stream().allMatch(event -> event.getTaskId() == created.getId()));
+        assertEquals(List.of(0L, 1L, 2L), published.stream().map(TaskChangeEvent::getTaskVersion).toList());
+        assertTrue(published.get(1).getTask().contains("\"title\":\"Renamed\""));
+        assertNull(published.get(2).getTask());
+        assertTrue(outboxRepository.findFirstByPublishedAtIsNullOrderByIdAsc().isEmpty());
+
+        // Опубликованное повторно не уходит
+        publisher.drain();
+        assertEquals(3, events.stream(TaskChangeEvent.class).count());
+    }
+
+    @Test
+    void drain_ShouldPublishTaskChangesByVersionEvenWhenOutboxIdsAreReversed() {
+        TaskDTO created = createTask("First");
+        taskService.updateTask(created.getId(), TaskDTO.builder().title("Second").build());
+        taskService.updateTask(created.getId(), TaskDTO.builder().title("Third").build());
+        // Более позднее изменение записал экземпляр с меньшим блоком id из последовательности
+        jdbcTemplate.update("UPDATE task_outbox SET id = -id WHERE task_version = 2");
+
+        publisher.drain();
+
+        List<TaskChangeEvent> published = events.stream(TaskChangeEvent.class).toList();
+        assertEquals(List.of(0L, 1L, 2L), published.stream().map(TaskChangeEvent::getTaskVersion).toList());
+        assertTrue(published.get(2).getTask().contains("\"title\":\"Third\""));
+    }
+
+    @Test
+    void drain_ShouldPublishBulkCompletionAndDeletionPerChangedTask() {
+        TaskDTO first = createTask("First");
+        TaskDTO second = createTask("Second");
+        taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(first.getId())).build(), true);
+        taskService.deleteTasks(TaskBulkRequestDTO.builder().username("outboxUser").build());
+
+        publisher.drain();
+
+        List<TaskChangeEvent> firstEvents = events.stream(TaskChangeEvent.class)
+                .filter(event -> event.getTaskId() == first.getId())
+                .toList();
+        assertEquals(List.of(TaskEventType.CREATED, TaskEventType.UPDATED, TaskEventType.DELETED),
+                firstEvents.stream().map(TaskChangeEvent::getType).toList());
+        assertEquals(List.of(0L, 1L, 2L), firstEvents.stream().map(TaskChangeEvent::getTaskVersion).toList());
+        assertTrue(firstEvents.get(1).getTask().contains("\"completed\":true"));
+        assertTrue(firstEvents.get(1).getTask().contains("\"userUsername\":\"outboxUser\""));
+        assertNull(firstEvents.get(2).getTask());
+
+        assertEquals(List.of(TaskEventType.CREATED, TaskEventType.DELETED), events.stream(TaskChangeEvent.class)
+                .filter(event -> event.getTaskId() == second.getId())
+                .map(TaskChangeEvent::getType)
+                .toList());
+    }
+
+    @Test
+    void drain_ShouldSkipTasksWhoseQueueIsHeldByAnotherPublisher() throws Exception {
+        TaskDTO held = createTask("Held");
+        taskService.updateTask(held.getId(), TaskDTO.builder().title("Held v2").build());
+        TaskDTO free = createTask("Free");
+
+        CountDownLatch headLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Другой экземпляр сервиса захватил голову очереди первой задачи и ещё не закоммитил пачку
+        CompletableFuture<Void> otherPublisher = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    assertEquals(List.of(held.getId()), outboxRepository.lockPendingTaskIds(1));
+                    headLocked.countDown();
+                    awaitQuietly(release);
+                }));
+        assertTrue(headLocked.await(10, TimeUnit.SECONDS));
+
+        publisher.drain();
+        release.countDown();
+        otherPublisher.get(10, TimeUnit.SECONDS);
+
+        // Ни голова, ни следующее за ней событие задачи не ушли мимо владельца очереди
+        assertEquals(List.of(free.getId()),
+                events.stream(TaskChangeEvent.class).map(TaskChangeEvent::getTaskId).toList());
+
+        publisher.drain();
+        assertEquals(List.of(free.getId(), held.getId(), held.getId()),
+                events.stream(TaskChangeEvent.class).map(TaskChangeEvent::getTaskId).toList());
+    }
+
+    private TaskDTO createTask(String title) {
+        return taskService.createTask(TaskDTO.builder().title(title).userUsername("outboxUser").build());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.task_service.task_service.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class WebhookTaskEventSinkTest {
+
+    private static final String URL = "http://consumer.local/task-events";
+
+    private MockRestServiceServer server;
+    private WebhookTaskEventSink sink;
+
+    private final TaskChangeEvent created = new TaskChangeEvent(1L, TaskEventType.CREATED, 10L, 0L, 5L,
+            LocalDateTime.now(), "{\"id\":10,\"title\":\"Title\"}");
+    private final TaskChangeEvent deleted = new TaskChangeEvent(2L, TaskEventType.DELETED, 10L, 1L, 5L,
+            LocalDateTime.now(), null);
+
+    @BeforeEach
+    void setUp() {
+        TaskOutboxProperties properties = new TaskOutboxProperties();
+        properties.getWebhook().setUrl(URL);
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        sink = new WebhookTaskEventSink(builder.build(), properties);
+    }
+
+    @Test
+    void publish_ShouldPostWholeBatchAsJsonArray() {
+        server.expect(requestTo(URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("CREATED"))
+                // payload из outbox встраивается как JSON-объект, а не строка
+                .andExpect(jsonPath("$[0].task.title").value("Title"))
+                .andExpect(jsonPath("$[1].type").value("DELETED"))
+                .andExpect(jsonPath("$[1].task").doesNotExist())
+                .andRespond(withSuccess());
+
+        sink.publish(List.of(created, deleted));
+
+        server.verify();
+    }
+
+    @Test
+    void publish_WhenConsumerFails_ShouldThrowSoBatchIsRetried() {
+        server.expect(requestTo(URL)).andRespond(withServerError());
+
+        assertThrows(HttpServerErrorException.class, () -> sink.publish(List.of(created)));
+    }
+
+    @Test
+    void constructor_WithoutUrl_ShouldFail() {
+        assertThrows(IllegalStateException.class,
+                () -> new WebhookTaskEventSink(RestClient.builder().build(), new TaskOutboxProperties()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.task_service.task_service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "rate-limit.enabled=true",
+        "rate-limit.trusted-proxies=127.0.0.0/8",
+        "rate-limit.policies.task-reads.limit=2",
+        "rate-limit.policies.task-reads.period=1m",
+        "rate-limit.policies.task-reads.burst=2",
+        "rate-limit.policies.default.limit=1",
+        "rate-limit.policies.default.period=1h",
+        "rate-limit.policies.default.burst=1"})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+class ClientRateLimitTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void noisyClient_ShouldBeLimitedWithoutAffectingOthers() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/tasks").header("X-Api-Key", "noisy"))
+                    .andExpect(status().isOk());
+        }
+
+        // Следующее разрешение - через 30 с (2 запроса в минуту)
+        mockMvc.perform(get("/api/v1/tasks").header("X-Api-Key", "noisy"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().longValue(HttpHeaders.RETRY_AFTER, 30))
+                .andExpect(jsonPath("$.retryAfter").value("30"));
+
+        mockMvc.perform(get("/api/v1/tasks").header("X-Api-Key", "quiet"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void apiKeyFromUntrustedAddress_ShouldNotGiveNewBucketPerKey() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            String apiKey = "rotating-" + i;
+            mockMvc.perform(get("/api/v1/tasks").header("X-Api-Key", apiKey).with(request -> {
+                        request.setRemoteAddr("10.0.0.9");
+                        return request;
+                    }))
+                    .andExpect(status().isOk());
+        }
+
+        // Адрес не из trusted-proxies: заголовок игнорируется, лимит общий для адреса
+        mockMvc.perform(get("/api/v1/tasks").header("X-Api-Key", "rotating-2").with(request -> {
+                    request.setRemoteAddr("10.0.0.9");
+                    return request;
+                }))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void endpointWithoutAnnotation_ShouldFallUnderDefaultPolicy() throws Exception {
+        mockMvc.perform(get("/api/v1/users").with(request -> {
+                    request.setRemoteAddr("10.0.0.7");
+                    return request;
+                }))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/users").with(request -> {
+                    request.setRemoteAddr("10.0.0.7");
+                    return request;
+                }))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(3600)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.task_service.task_service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GcraRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    // 10 запросов в секунду (интервал 100 мс), подряд после простоя - до 3
+    private GcraRateLimiter limiter(int burst) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setLimit(10);
+        policy.setPeriod(Duration.ofSeconds(1));
+        policy.setBurst(burst);
+        return new GcraRateLimiter("test", policy, 1_000, clock::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReturnTimeUntilNextPermit() {
+        GcraRateLimiter limiter = limiter(3);
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(Duration.ofMillis(100).toNanos(), limiter.tryAcquire("client"));
+
+        clock.addAndGet(Duration.ofMillis(40).toNanos());
+        assertEquals(Duration.ofMillis(60).toNanos(), limiter.tryAcquire("client"));
+
+        clock.addAndGet(Duration.ofMillis(60).toNanos());
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(Duration.ofMillis(100).toNanos(), limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBucketPerClient() {
+        GcraRateLimiter limiter = limiter(1);
+
+        assertEquals(0, limiter.tryAcquire("first"));
+        assertEquals(0, limiter.tryAcquire("second"));
+        assertEquals(Duration.ofMillis(100).toNanos(), limiter.tryAcquire("first"));
+    }
+
+    @Test
+    void tryAcquire_AfterIdlePeriod_ShouldNotAccumulateMoreThanBurst() {
+        GcraRateLimiter limiter = limiter(2);
+        limiter.tryAcquire("client");
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(Duration.ofMillis(100).toNanos(), limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void tryAcquire_UnderConcurrency_ShouldGrantExactlyBurst() throws Exception {
+        GcraRateLimiter limiter = limiter(50);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            long granted = 0;
+            for (Future<Boolean> result : executor.invokeAll(IntStream.range(0, 400)
+                    .<Callable<Boolean>>mapToObj(i -> () -> limiter.tryAcquire("client") == 0)
+                    .toList())) {
+                granted += result.get() ? 1 : 0;
+            }
+            assertEquals(50, granted);
+        }
+    }
+
+    @Test
+    void tryAcquire_With50kKeysFromManyThreads_ShouldLimitEachKeyIndependently() throws Exception {
+        int keys = 50_000;
+        int threads = 8;
+        // Интервал в минуты: за время теста ни одно ведро не пополнится и не истечёт
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setLimit(10);
+        policy.setPeriod(Duration.ofHours(1));
+        policy.setBurst(3);
+        GcraRateLimiter limiter = new GcraRateLimiter("test", policy, 200_000, clock::get);
+
+        // Каждый поток проходит все ключи со своего смещения: один ключ одновременно запрашивают разные потоки
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            long granted = 0;
+            for (Future<Long> result : executor.invokeAll(IntStream.range(0, threads)
+                    .<Callable<Long>>mapToObj(thread -> () -> IntStream.range(0, keys)
+                            .mapToObj(i -> "client-" + (i + thread * keys / threads) % keys)
+                            .filter(key -> limiter.tryAcquire(key) == 0)
+                            .count())
+                    .toList())) {
+                granted += result.get();
+            }
+            assertEquals(3L * keys, granted);
+        }
+        limiter.getBuckets().cleanUp();
+        assertEquals(keys, limiter.getBuckets().estimatedSize());
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.task_service.task_service.repository;
+
+import com.example.task_service.task_service.metrics.SqlStatementCapture;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Регрессия планов: EXPLAIN выполняется для SQL, который Hibernate действительно сгенерировал для методов
+ * репозиториев, и на заметном объёме данных ни один из них не должен уходить в Seq Scan.
+ * Offset-пагинация (findAllActiveAsDTO + COUNT) сюда не входит: она читает таблицу по определению.
+ * Заполнение 200k строк занимает время, поэтому тест не входит в обычный прогон: mvn -Pslow test.
+ */
+@Tag("slow")
+@SpringBootTest(properties = {"logging.level.root=INFO", "spring.jpa.show-sql=false"})
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskQueryPlanTest {
+
+    private static final int USERS = 10_000;
+    private static final int TASKS = 200_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        // Каждый десятый пользователь и каждая пятая задача удалены (active = false)
+        jdbcTemplate.update("INSERT INTO users (username, email, password, created_at, updated_at, active) "
+                + "SELECT 'user' || g, 'user' || g || '@example.com', 'password', now(), now(), g % 10 <> 0 "
+                + "FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO task (title, description, completed, active, created_at, updated_at, user_id) "
+                + "SELECT 'Task ' || g, 'Description of task ' || g, g % 2 = 0, g % 5 <> 0, now(), now(), u.id "
+                + "FROM generate_series(1, ?) g JOIN users u ON u.username = 'user' || (g % ? + 1)", TASKS, USERS);
+        jdbcTemplate.execute("VACUUM ANALYZE users");
+        jdbcTemplate.execute("VACUUM ANALYZE task");
+    }
+
+    @Test
+    void findActiveAsDTOAfter() {
+        long afterId = midTaskId();
+        assertNoSeqScan(() -> taskRepository.findActiveAsDTOAfter(afterId, Limit.of(11)), afterId, 11);
+    }
+
+    @Test
+    void findActiveUpdatedAtById() {
+        long id = midTaskId();
+        assertNoSeqScan(() -> taskRepository.findActiveUpdatedAtById(id), id);
+    }
+
+    @Test
+    void findById() {
+        // Task.user - LAZY: сущность читается по первичному ключу без JOIN на users
+        long id = midTaskId();
+        assertNoSeqScan(() -> taskRepository.findById(id), id);
+    }
+
+    @Test
+    void findActiveAsDTOByUsername() {
+        assertNoSeqScan(() -> taskRepository.findActiveAsDTOByUsername("user42"), "user42");
+    }
+
+    @Test
+    void findActiveAsDTOByUsernameAfter() {
+        long afterId = midTaskId();
+        assertNoSeqScan(() -> taskRepository.findActiveAsDTOByUsernameAfter("user42", afterId, Limit.of(11)),
+                "user42", afterId, 11);
+    }
+
+
+    @Test
+    void findActiveIdByUsername() {
+        assertNoSeqScan(() -> userRepository.findActiveIdByUsername("user42"), "user42");
+    }
+
+    @Test
+    void findActiveIdsAfter() {
+        long afterId = midUserId();
+        assertNoSeqScan(() -> userRepository.findActiveIdsAfter(afterId, Limit.of(11)), afterId, 11);
+    }
+
+    @Test
+    void search() {
+        // Редкий терм: номер задачи из описания, такой поиск должен идти через GIN-индекс.
+        // Именованный параметр нативного запроса раскрывается в ? на каждое вхождение
+        assertNoSeqScan(() -> taskRepository.search("123457", "", true, Float.MAX_VALUE, 0L, 11),
+                "123457", true, "", "", Float.MAX_VALUE, Float.MAX_VALUE, 0L, 11);
+    }
+
+    @Test
+    void updateCompletedByIds() {
+        long id = midTaskId();
+        // 4 id - IN-список без дополнения (in_clause_parameter_padding дополняет до степени двойки)
+        List<Long> ids = List.of(id, id + 1, id + 2, id + 3);
+        LocalDateTime now = LocalDateTime.now();
+        assertNoSeqScan(() -> taskRepository.updateCompletedByIds(ids, true, now),
+                true, now, id, id + 1, id + 2, id + 3, true);
+    }
+
+    @Test
+    void updateCompletedByUserId() {
+        long userId = midUserId();
+        LocalDateTime now = LocalDateTime.now();
+        assertNoSeqScan(() -> taskRepository.updateCompletedByUserId(userId, true, now), true, now, userId, true);
+    }
+
+    @Test
+    void lockByIds() {
+        long id = midTaskId();
+        List<Long> ids = List.of(id, id + 1, id + 2, id + 3);
+        assertNoSeqScan(() -> taskRepository.lockByIds(ids), id, id + 1, id + 2, id + 3);
+    }
+
+    @Test
+    void deactivateByIds() {
+        long id = midTaskId();
+        List<Long> ids = List.of(id, id + 1, id + 2, id + 3);
+        LocalDateTime now = LocalDateTime.now();
+        assertNoSeqScan(() -> taskRepository.deactivateByIds(ids, now), now, id, id + 1, id + 2, id + 3);
+    }
+
+    @Test
+    void deactivateByUserId() {
+        long userId = midUserId();
+        LocalDateTime now = LocalDateTime.now();
+        assertNoSeqScan(() -> taskRepository.deactivateByUserId(userId, now), now, userId);
+    }
+
+    private long midTaskId() {
+        return jdbcTemplate.queryForObject("SELECT percentile_disc(0.5) WITHIN GROUP (ORDER BY id) FROM task", Long.class);
+    }
+
+    private long midUserId() {
+        return jdbcTemplate.queryForObject("SELECT percentile_disc(0.5) WITHIN GROUP (ORDER BY id) FROM users", Long.class);
+    }
+
+    /**
+     * Выполняет метод репозитория, перехватывает сгенерированный Hibernate SQL и проверяет его план.
+     * parameters - значения для ? в порядке их появления в SQL. Транзакция откатывается,
+     * так что UPDATE-запросы данные не меняют.
+     */
+    private void assertNoSeqScan(Runnable repositoryCall, Object... parameters) {
+        // Иначе findById мог бы прийти из second-level cache без запроса в базу
+        entityManagerFactory.getCache().evictAll();
+        List<String> statements = SqlStatementCapture.capture(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    repositoryCall.run();
+                    status.setRollbackOnly();
+                }));
+        assertEquals(1, statements.size(), () -> "Expected exactly one statement, got: " + statements);
+        String sql = statements.get(0);
+        assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(),
+                () -> "Parameter values do not match placeholders in:\n" + sql);
+        // Значения передаются bind-параметрами: план строится для тех же значений, что в запросе репозитория
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+        assertFalse(plan.contains("Seq Scan"), () -> "Sequential scan in plan for:\n" + sql + "\n" + plan);
+    }
+}
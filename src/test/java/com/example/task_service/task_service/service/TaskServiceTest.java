@@ -1,29 +1,61 @@
 package com.example.task_service.task_service.service;
 
+import com.example.task_service.task_service.cache.UserIdCache;
+import com.example.task_service.task_service.counters.TaskCountDelta;
+import com.example.task_service.task_service.counters.TaskCounters;
+import com.example.task_service.task_service.dto.TaskBatchItemResultDTO;
+import com.example.task_service.task_service.dto.TaskBulkRequestDTO;
 import com.example.task_service.task_service.dto.TaskDTO;
 import com.example.task_service.task_service.entity.Task;
+import com.example.task_service.task_service.etag.ETags;
 import com.example.task_service.task_service.entity.User;
+import com.example.task_service.task_service.exception.BadRequestException;
+import com.example.task_service.task_service.exception.PreconditionFailedException;
+import com.example.task_service.task_service.exception.UserNotFoundException;
 import com.example.task_service.task_service.mapper.TaskMapper;
+import com.example.task_service.task_service.outbox.TaskEventType;
+import com.example.task_service.task_service.outbox.TaskOutbox;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.pagination.CursorPage;
+import com.example.task_service.task_service.pagination.PaginationProperties;
+import com.example.task_service.task_service.repository.ArchivedTaskRepository;
 import com.example.task_service.task_service.repository.TaskRepository;
+import com.example.task_service.task_service.repository.TaskChangeRow;
+import com.example.task_service.task_service.repository.TaskSearchRow;
 import com.example.task_service.task_service.repository.UserRepository;
+import com.example.task_service.task_service.repository.UserTaskCountersRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +70,33 @@ class TaskServiceTest {
     @Mock
     private TaskMapper taskMapper;
 
+    @Mock
+    private UserIdCache userIdCache;
+
+    @Mock
+    private TaskOutbox taskOutbox;
+
+    @Mock
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Mock
+    private TaskCounters taskCounters;
+
+    @Mock
+    private UserTaskCountersRepository userTaskCountersRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Spy
+    private TaskBatchProperties batchProperties = new TaskBatchProperties();
+
     @InjectMocks
     private TaskService taskService;
 
@@ -47,6 +106,9 @@ class TaskServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Массовые операции регистрируют вытеснение из second-level cache после коммита
+        TransactionSynchronizationManager.initSynchronization();
+
         user = User.builder()
                 .id(1L)
                 .username("testUser")
@@ -73,16 +135,20 @@ class TaskServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
     @Test
     void getAllTasks_ShouldReturnAllTasks() {
         // Arrange
-        List<Task> tasks = Arrays.asList(task);
+        List<TaskDTO> tasks = Arrays.asList(taskDTO);
         Pageable pageable = PageRequest.of(0, 10);
         // Create PageImpl with total elements = 10 to match the page size
-        Page<Task> taskPage = new PageImpl<>(tasks, pageable, 10);
+        Page<TaskDTO> taskPage = new PageImpl<>(tasks, pageable, 10);
 
-        when(taskRepository.findAllByActiveTrue(pageable)).thenReturn(taskPage);
-        when(taskMapper.toDTO(any(Task.class))).thenReturn(taskDTO);
+        when(taskRepository.findAllActiveAsDTO(pageable)).thenReturn(taskPage);
 
         // Act
         Page<TaskDTO> result = taskService.getAllTasks(pageable);
@@ -94,15 +160,48 @@ class TaskServiceTest {
         assertEquals(0, result.getNumber());
         assertEquals(10, result.getSize());
         assertEquals(taskDTO, result.getContent().get(0));
-        verify(taskRepository).findAllByActiveTrue(pageable);
-        verify(taskMapper).toDTO(task);
+        verify(taskRepository).findAllActiveAsDTO(pageable);
+        verifyNoInteractions(taskMapper);
+    }
+
+    @Test
+    void getTasksAfter_WhenMoreRowsExist_ShouldReturnNextCursor() {
+        // Arrange
+        TaskDTO second = TaskDTO.builder().id(2L).title("Second").userUsername("testUser").build();
+        when(taskRepository.findActiveAsDTOAfter(0L, Limit.of(2))).thenReturn(List.of(taskDTO, second));
+
+        // Act
+        CursorPage<TaskDTO> result = taskService.getTasksAfter(null, 1);
+
+        // Assert
+        assertEquals(List.of(taskDTO), result.getItems());
+        assertEquals(1L, CursorCodec.decodeId(result.getNextCursor()));
+    }
+
+    @Test
+    void getTasksAfter_OnLastPage_ShouldReturnNoCursor() {
+        // Arrange
+        when(taskRepository.findActiveAsDTOAfter(1L, Limit.of(11))).thenReturn(List.of());
+
+        // Act
+        CursorPage<TaskDTO> result = taskService.getTasksAfter(CursorCodec.encodeId(1L), null);
+
+        // Assert
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    void getTasksAfter_WithMalformedCursor_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> taskService.getTasksAfter("not-a-cursor", 10));
+        verify(taskRepository, never()).findActiveAsDTOAfter(any(), any());
     }
 
     @Test
     void getTaskById_WhenTaskExists_ShouldReturnTask() {
         // Arrange
-        when(taskRepository.findByIdAndActiveTrue(1L)).thenReturn(Optional.of(task));
-        when(taskMapper.toDTO(any(Task.class))).thenReturn(taskDTO);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
 
         // Act
         TaskDTO result = taskService.getTaskById(1L);
@@ -110,28 +209,60 @@ class TaskServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(taskDTO, result);
-        verify(taskRepository).findByIdAndActiveTrue(1L);
+        verify(taskRepository).findById(1L);
         verify(taskMapper).toDTO(task);
     }
 
+    @Test
+    void getTaskById_WhenTaskIsInactive_ShouldThrowException() {
+        // Arrange
+        task.setActive(false);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> taskService.getTaskById(1L));
+        verify(taskMapper, never()).toDTO(any());
+    }
+
     @Test
     void getTaskById_WhenTaskDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(taskRepository.findByIdAndActiveTrue(1L)).thenReturn(Optional.empty());
+        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> taskService.getTaskById(1L));
-        verify(taskRepository).findByIdAndActiveTrue(1L);
+        verify(taskRepository).findById(1L);
         verify(taskMapper, never()).toDTO(any());
+        verifyNoInteractions(archivedTaskRepository);
+    }
+
+    @Test
+    void getTaskById_WithIncludeArchived_ShouldFallBackToArchive() {
+        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedTaskRepository.findActiveAsDTOById(1L)).thenReturn(Optional.of(taskDTO));
+
+        assertSame(taskDTO, taskService.getTaskById(1L, true));
+    }
+
+    @Test
+    void getTasksVersionByUsername_WithIncludeArchived_ShouldTakeLatestOfBothTables() {
+        LocalDateTime hot = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime archived = hot.plusDays(1);
+        when(taskRepository.findListVersionByUsername("testUser")).thenReturn(Optional.of(hot));
+        when(archivedTaskRepository.findLatestUpdatedAtByUsername("testUser")).thenReturn(Optional.of(archived));
+
+        assertEquals(Optional.of(archived), taskService.getTasksVersionByUsername("testUser", true));
+        assertEquals(Optional.of(hot), taskService.getTasksVersionByUsername("testUser"));
     }
 
     @Test
     void createTask_ShouldCreateAndReturnTask() {
         // Arrange
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+        when(userIdCache.findActiveUserId("testUser")).thenReturn(Optional.of(1L));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
         when(taskMapper.toEntity(any(TaskDTO.class))).thenReturn(task);
         when(taskRepository.save(any(Task.class))).thenReturn(task);
-        when(taskMapper.toDTO(any(Task.class))).thenReturn(taskDTO);
+        when(taskMapper.toDTO(task, "testUser")).thenReturn(taskDTO);
 
         // Act
         TaskDTO result = taskService.createTask(taskDTO);
@@ -139,18 +270,75 @@ class TaskServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(taskDTO, result);
-        verify(userRepository).findByUsername("testUser");
+        verify(userIdCache).findActiveUserId("testUser");
+        verify(userRepository).getReferenceById(1L);
+        verify(userRepository, never()).findByUsername(any());
         verify(taskMapper).toEntity(taskDTO);
         verify(taskRepository).save(task);
-        verify(taskMapper).toDTO(task);
+        assertSame(user, task.getUser());
+        verify(taskOutbox).record(TaskEventType.CREATED, task, taskDTO);
+    }
+
+    @Test
+    void createTask_WithUnknownUser_ShouldThrowBadRequest() {
+        // Arrange
+        when(userIdCache.findActiveUserId("testUser")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> taskService.createTask(taskDTO));
+        verify(taskRepository, never()).save(any());
+        verifyNoInteractions(taskOutbox);
+    }
+
+    @Test
+    void createTasks_ShouldSaveValidTasksAndRejectOthersByIndex() {
+        // Arrange
+        TaskDTO unknownUserTask = TaskDTO.builder().title("Other").userUsername("ghost").build();
+        TaskDTO noUserTask = TaskDTO.builder().title("Orphan").build();
+        TaskDTO secondTaskDTO = TaskDTO.builder().title("Second").userUsername("testUser").build();
+        Task secondTask = Task.builder().title("Second").build();
+        when(userIdCache.findActiveUserId("testUser")).thenReturn(Optional.of(1L));
+        when(userIdCache.findActiveUserId("ghost")).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(taskMapper.toEntity(taskDTO)).thenReturn(task);
+        when(taskMapper.toEntity(secondTaskDTO)).thenReturn(secondTask);
+        when(taskMapper.toDTO(task, "testUser")).thenReturn(taskDTO);
+        when(taskMapper.toDTO(secondTask, "testUser")).thenReturn(secondTaskDTO);
+
+        // Act
+        List<TaskBatchItemResultDTO> result = taskService.createTasks(
+                List.of(taskDTO, unknownUserTask, noUserTask, secondTaskDTO));
+
+        // Assert
+        assertEquals(4, result.size());
+        assertEquals(TaskBatchItemResultDTO.created(0, taskDTO), result.get(0));
+        assertEquals(TaskBatchItemResultDTO.Status.REJECTED, result.get(1).getStatus());
+        assertEquals(1, result.get(1).getIndex());
+        assertEquals(TaskBatchItemResultDTO.Status.REJECTED, result.get(2).getStatus());
+        assertEquals(TaskBatchItemResultDTO.created(3, secondTaskDTO), result.get(3));
+        // Один поиск id на каждого пользователя, а не на каждую задачу
+        verify(userIdCache, times(1)).findActiveUserId("testUser");
+        verify(taskRepository).saveAll(List.of(task, secondTask));
+        verify(taskRepository).flush();
+        assertSame(user, secondTask.getUser());
+        verify(taskOutbox).record(TaskEventType.CREATED, task, taskDTO);
+        verify(taskOutbox).record(TaskEventType.CREATED, secondTask, secondTaskDTO);
+    }
+
+    @Test
+    void createTasks_WhenBatchTooLarge_ShouldThrowBadRequest() {
+        // Arrange
+        batchProperties.setMaxSize(1);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> taskService.createTasks(List.of(taskDTO, taskDTO)));
+        verifyNoInteractions(taskRepository);
     }
 
     @Test
     void getTasksByUsername_ShouldReturnTasksForUser() {
         // Arrange
-        List<Task> tasks = Arrays.asList(task);
-        when(taskRepository.findByUserUsername("testUser")).thenReturn(tasks);
-        when(taskMapper.toDTO(any(Task.class))).thenReturn(taskDTO);
+        when(taskRepository.findActiveAsDTOByUsername("testUser")).thenReturn(List.of(taskDTO));
 
         // Act
         List<TaskDTO> result = taskService.getTasksByUsername("testUser");
@@ -159,15 +347,80 @@ class TaskServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(taskDTO, result.get(0));
-        verify(taskRepository).findByUserUsername("testUser");
-        verify(taskMapper).toDTO(task);
+        verify(taskRepository).findActiveAsDTOByUsername("testUser");
+        verifyNoInteractions(taskMapper);
+    }
+
+    @Test
+    void streamTasksByUsername_ShouldPassEachTask() {
+        // Arrange
+        when(taskRepository.streamActiveAsDTOByUsername("testUser")).thenReturn(Stream.of(taskDTO));
+        List<TaskDTO> received = new ArrayList<>();
+
+        // Act
+        taskService.streamTasksByUsername("testUser", received::add);
+
+        // Assert
+        assertEquals(List.of(taskDTO), received);
+    }
+
+    @Test
+    void getTasksByUsernameAfter_ShouldSeekWithinUser() {
+        // Arrange
+        when(taskRepository.findActiveAsDTOByUsernameAfter("testUser", 0L, Limit.of(11))).thenReturn(List.of(taskDTO));
+
+        // Act
+        CursorPage<TaskDTO> result = taskService.getTasksByUsernameAfter("testUser", null, null);
+
+        // Assert
+        assertEquals(List.of(taskDTO), result.getItems());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    void searchTasks_ShouldReturnRankCursorOfLastRow() {
+        // Arrange
+        TaskSearchRow first = mock(TaskSearchRow.class);
+        TaskSearchRow second = mock(TaskSearchRow.class);
+        when(second.getRank()).thenReturn(0.25f);
+        when(second.getId()).thenReturn(7L);
+        when(taskRepository.search("report", "", true, Float.MAX_VALUE, 0L, 3))
+                .thenReturn(List.of(first, second, mock(TaskSearchRow.class)));
+        when(taskMapper.fromSearchRow(any())).thenReturn(taskDTO);
+
+        // Act
+        CursorPage<TaskDTO> result = taskService.searchTasks("report", null, true, null, 2);
+
+        // Assert
+        assertEquals(2, result.getItems().size());
+        assertArrayEquals(new String[]{"0.25", "7"}, CursorCodec.decode(result.getNextCursor(), 2));
+    }
+
+    @Test
+    void searchTasks_ShouldContinueFromCursor() {
+        // Arrange
+        when(taskRepository.search("report", "testUser", false, 0.25f, 7L, 11)).thenReturn(List.of());
+
+        // Act
+        CursorPage<TaskDTO> result = taskService.searchTasks("report", "testUser", false,
+                CursorCodec.encode(0.25f, 7L), null);
+
+        // Assert
+        assertTrue(result.getItems().isEmpty());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    void searchTasks_WithBlankQuery_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> taskService.searchTasks(" ", null, true, null, null));
+        verifyNoInteractions(taskRepository);
     }
 
     @Test
     void updateTask_WhenTaskExists_ShouldUpdateAndReturnTask() {
         // Arrange
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenReturn(task);
         when(taskMapper.toDTO(any(Task.class))).thenReturn(taskDTO);
 
         // Act
@@ -176,47 +429,267 @@ class TaskServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(taskDTO, result);
-        verify(taskRepository).findById(1L);
+        verify(taskRepository).findByIdForUpdate(1L);
         verify(taskMapper).updateTaskFromTaskDTO(taskDTO, task);
-        verify(taskRepository).save(task);
+        verify(taskRepository).saveAndFlush(task);
         verify(taskMapper).toDTO(task);
+        verify(taskOutbox).record(TaskEventType.UPDATED, task, taskDTO);
     }
 
     @Test
     void updateTask_WhenTaskDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> taskService.updateTask(1L, taskDTO));
-        verify(taskRepository).findById(1L);
+        verify(taskRepository).findByIdForUpdate(1L);
         verify(taskMapper, never()).updateTaskFromTaskDTO(any(), any());
-        verify(taskRepository, never()).save(any());
+        verify(taskRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(taskOutbox);
+    }
+
+    @Test
+    void updateTask_WithStaleIfMatch_ShouldThrowPreconditionFailed() {
+        // Arrange
+        task.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(task));
+        String stale = ETags.strong(1L, LocalDateTime.of(2024, 1, 1, 11, 0));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> taskService.updateTask(1L, taskDTO, stale));
+        verify(taskRepository, never()).findById(any());
+        verify(taskMapper, never()).updateTaskFromTaskDTO(any(), any());
+        verify(taskRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(taskOutbox);
+    }
+
+    @Test
+    void updateTask_WithCurrentIfMatch_ShouldLockAndUpdate() {
+        // Arrange
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+        task.setUpdatedAt(updatedAt);
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.saveAndFlush(task)).thenReturn(task);
+        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+
+        // Act
+        TaskDTO result = taskService.updateTask(1L, taskDTO, "W/\"1\", " + ETags.strong(1L, updatedAt));
+
+        // Assert
+        assertEquals(taskDTO, result);
+        verify(taskMapper).updateTaskFromTaskDTO(taskDTO, task);
+        verify(taskOutbox).record(TaskEventType.UPDATED, task, taskDTO);
     }
 
     @Test
     void deleteTask_ShouldSetActiveToFalse() {
         // Arrange
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenReturn(task);
 
         // Act
         taskService.deleteTask(1L);
 
         // Assert
-        verify(taskRepository).findById(1L);
-        verify(taskRepository).save(task);
+        verify(taskRepository).findByIdForUpdate(1L);
+        verify(taskRepository).saveAndFlush(task);
         assertFalse(task.isActive());
+        verify(taskOutbox).recordDeleted(task);
+        verify(taskCounters).record(1L, new TaskCountDelta(0, -1, 0, -1));
+    }
+
+    @Test
+    void setCompleted_ByIds_ShouldLockAndRunSingleUpdateWithDistinctIds() {
+        // Arrange
+        when(taskRepository.updateCompletedByIds(eq(Set.of(1L, 2L)), eq(true), any()))
+                .thenReturn(List.of(changed(1L, 1L, true), changed(2L, 1L, true)));
+
+        // Act
+        int affected = taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(2L, 1L, 2L)).build(), true)
+                .getAffected();
+
+        // Assert
+        assertEquals(2, affected);
+        verify(taskRepository).lockByIds(Set.of(1L, 2L));
+        verify(taskRepository, never()).findById(any());
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    void setCompleted_ByIds_ShouldCountAndPublishOnlyChangedTasks() {
+        // Arrange
+        List<TaskChangeRow> rows = List.of(changed(1L, 1L, true), changed(3L, 2L, true));
+        when(taskRepository.updateCompletedByIds(eq(Set.of(1L, 2L, 3L, 4L)), eq(true), any())).thenReturn(rows);
+
+        // Act
+        taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(1L, 2L, 3L, 4L)).build(), true);
+
+        // Assert
+        verify(taskCounters).recordAll(Map.of(
+                1L, new TaskCountDelta(0, -1, 1, 0),
+                2L, new TaskCountDelta(0, -1, 1, 0)));
+        verify(taskOutbox).recordAll(eq(TaskEventType.UPDATED), eq(rows), any());
+    }
+
+    @Test
+    void setCompleted_ByUsername_ShouldUpdateByResolvedUserIdAndPublishChanges() {
+        // Arrange
+        List<TaskChangeRow> rows = List.of(changed(1L, 1L, false), changed(2L, 1L, false), changed(5L, 1L, false));
+        when(userIdCache.findActiveUserId("testUser")).thenReturn(Optional.of(1L));
+        when(taskRepository.updateCompletedByUserId(eq(1L), eq(false), any())).thenReturn(rows);
+
+        // Act
+        int affected = taskService.setCompleted(TaskBulkRequestDTO.builder().username("testUser").build(), false)
+                .getAffected();
+
+        // Assert
+        assertEquals(3, affected);
+        verify(taskCounters).recordAll(Map.of(1L, new TaskCountDelta(0, 3, -3, 0)));
+        verify(taskOutbox).recordAll(eq(TaskEventType.UPDATED), eq(rows), any());
+    }
+
+    @Test
+    void setCompleted_WhenNothingChanges_ShouldNotRecordEvents() {
+        // Arrange
+        when(taskRepository.updateCompletedByIds(eq(Set.of(1L)), eq(true), any())).thenReturn(List.of());
+
+        // Act
+        int affected = taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(1L)).build(), true)
+                .getAffected();
+
+        // Assert
+        assertEquals(0, affected);
+        verifyNoInteractions(taskOutbox, taskCounters);
+    }
+
+    @Test
+    void setCompleted_WithoutTarget_ShouldThrowBadRequest() {
+        assertThrows(BadRequestException.class,
+                () -> taskService.setCompleted(new TaskBulkRequestDTO(), true));
+        verify(taskRepository, never()).updateCompletedByIds(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void setCompleted_WithTooManyIds_ShouldThrowBadRequest() {
+        // Arrange
+        batchProperties.setMaxBulkIds(1);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> taskService.setCompleted(TaskBulkRequestDTO.builder().ids(List.of(1L, 2L)).build(), true));
+        verify(taskRepository, never()).updateCompletedByIds(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void deleteTasks_ByIds_ShouldDeactivateInSingleUpdateAndPublishDeletes() {
+        // Arrange
+        List<TaskChangeRow> rows = List.of(changed(1L, 1L, true));
+        when(taskRepository.deactivateByIds(eq(Set.of(1L, 3L)), any())).thenReturn(rows);
+
+        // Act
+        int affected = taskService.deleteTasks(TaskBulkRequestDTO.builder().ids(List.of(1L, 3L)).build()).getAffected();
+
+        // Assert
+        assertEquals(1, affected);
+        verify(taskRepository).lockByIds(Set.of(1L, 3L));
+        verify(taskOutbox).recordAll(eq(TaskEventType.DELETED), eq(rows), any());
+        verify(taskCounters).recordAll(Map.of(1L, new TaskCountDelta(0, 0, -1, -1)));
+    }
+
+    @Test
+    void deleteTasks_ByUsername_ShouldEvictChangedTasksOnlyAfterCommit() {
+        // Arrange
+        when(userIdCache.findActiveUserId("testUser")).thenReturn(Optional.of(1L));
+        when(taskRepository.deactivateByUserId(eq(1L), any()))
+                .thenReturn(List.of(changed(1L, 1L, false), changed(2L, 1L, true)));
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+
+        // Act
+        int affected = taskService.deleteTasks(TaskBulkRequestDTO.builder().username("testUser").build()).getAffected();
+
+        // Assert
+        assertEquals(2, affected);
+        verify(taskCounters).recordAll(Map.of(1L, new TaskCountDelta(0, -1, -1, -2)));
+        verifyNoInteractions(secondLevelCache);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(secondLevelCache).evict(Task.class, 1L);
+        verify(secondLevelCache).evict(Task.class, 2L);
+    }
+
+    @Test
+    void deleteTasks_ForUnknownUser_ShouldThrowUserNotFound() {
+        // Arrange
+        when(userIdCache.findActiveUserId("ghost")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class,
+                () -> taskService.deleteTasks(TaskBulkRequestDTO.builder().username("ghost").build()));
+        verify(taskRepository, never()).deactivateByUserId(any(), any());
     }
 
     @Test
     void deleteTask_WhenTaskDoesNotExist_ShouldThrowException() {
         // Arrange
-        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        when(taskRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> taskService.deleteTask(1L));
-        verify(taskRepository).findById(1L);
-        verify(taskRepository, never()).save(any());
+        verify(taskRepository).findByIdForUpdate(1L);
+        verify(taskRepository, never()).saveAndFlush(any());
+    }
+
+    private static TaskChangeRow changed(Long id, Long userId, boolean completed) {
+        return new TaskChangeRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 1L;
+            }
+
+            @Override
+            public String getTitle() {
+                return "Task " + id;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public boolean isCompleted() {
+                return completed;
+            }
+
+            @Override
+            public boolean isActive() {
+                return true;
+            }
+
+            @Override
+            public String getUsername() {
+                return "testUser";
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return null;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return null;
+            }
+        };
     }
 }
@@ -1,5 +1,7 @@
 package com.example.task_service.task_service.service;
 
+import com.example.task_service.task_service.cache.RoleRegistry;
+import com.example.task_service.task_service.cache.UserIdCache;
 import com.example.task_service.task_service.dto.UserDTO;
 import com.example.task_service.task_service.entity.Role;
 import com.example.task_service.task_service.entity.User;
@@ -7,18 +9,24 @@ import com.example.task_service.task_service.exception.BadRequestException;
 import com.example.task_service.task_service.exception.RoleNotFoundException;
 import com.example.task_service.task_service.exception.UserNotFoundException;
 import com.example.task_service.task_service.mapper.UserMapper;
-import com.example.task_service.task_service.repository.RoleRepository;
+import com.example.task_service.task_service.pagination.CursorCodec;
+import com.example.task_service.task_service.pagination.CursorPage;
+import com.example.task_service.task_service.pagination.PaginationProperties;
 import com.example.task_service.task_service.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Arrays;
 import java.util.List;
@@ -36,11 +44,17 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
+
+    @Mock
+    private UserIdCache userIdCache;
 
     @Mock
     private UserMapper userMapper;
 
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
     @InjectMocks
     private UserService userService;
 
@@ -73,8 +87,8 @@ class UserServiceTest {
 
     @Test
     void createUser_ShouldCreateAndReturnUser() {
-        when(roleRepository.findByName("ROLE_ADMIN")).thenReturn(Optional.of(roleEntity));
-        when(userMapper.toEntity(userDTO, roleRepository)).thenReturn(userEntity);
+        when(roleRegistry.find("ROLE_ADMIN")).thenReturn(Optional.of(roleEntity));
+        when(userMapper.toEntity(userDTO, roleRegistry)).thenReturn(userEntity);
         when(userRepository.save(userEntity)).thenReturn(userEntity);
         when(userMapper.toDTO(userEntity)).thenReturn(userDTO);
 
@@ -85,8 +99,8 @@ class UserServiceTest {
         assertEquals("pavel@example.com", createdUser.getEmail());
         assertTrue(createdUser.getRoles().contains("ROLE_ADMIN"));
 
-        verify(roleRepository).findByName("ROLE_ADMIN");
-        verify(userMapper).toEntity(userDTO, roleRepository);
+        verify(roleRegistry).find("ROLE_ADMIN");
+        verify(userMapper).toEntity(userDTO, roleRegistry);
         verify(userRepository).save(userEntity);
         verify(userMapper).toDTO(userEntity);
     }
@@ -100,11 +114,11 @@ class UserServiceTest {
                 .roles(Set.of("ROLE_UNKNOWN"))
                 .build();
 
-        when(roleRepository.findByName("ROLE_UNKNOWN")).thenReturn(Optional.empty());
+        when(roleRegistry.find("ROLE_UNKNOWN")).thenReturn(Optional.empty());
 
         assertThrows(BadRequestException.class, () -> userService.createUser(invalidUserDTO));
 
-        verify(roleRepository).findByName("ROLE_UNKNOWN");
+        verify(roleRegistry).find("ROLE_UNKNOWN");
         verify(userMapper, never()).toEntity(any(), any());
         verify(userRepository, never()).save(any());
         verify(userMapper, never()).toDTO(any());
@@ -131,6 +145,20 @@ class UserServiceTest {
         verify(userMapper).toDTO(userEntity);
     }
 
+    @Test
+    void getUsersAfter_ShouldSeekFromCursorAndCapLimit() {
+        paginationProperties.setMaxLimit(1);
+        User next = User.builder().id(2L).username("next").build();
+        when(userRepository.findActiveAfter(0L, Limit.of(2))).thenReturn(List.of(userEntity, next));
+        when(userMapper.toDTO(userEntity)).thenReturn(userDTO);
+
+        CursorPage<UserDTO> users = userService.getUsersAfter(null, 50);
+
+        assertEquals(List.of(userDTO), users.getItems());
+        assertEquals(1L, CursorCodec.decodeId(users.getNextCursor()));
+        verify(userRepository).findActiveAfter(0L, Limit.of(2));
+    }
+
     @Test
     void findByUsername_ShouldReturnUser() {
         when(userRepository.findByUsernameAndActiveTrue("Pavel22")).thenReturn(Optional.of(userEntity));
@@ -166,8 +194,8 @@ class UserServiceTest {
         Set<Role> roles = Set.of(roleEntity, newRole);
 
         when(userRepository.findByUsername("Pavel22")).thenReturn(Optional.of(userEntity));
-        when(roleRepository.findByName("ROLE_ADMIN")).thenReturn(Optional.of(roleEntity));
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(newRole));
+        when(roleRegistry.find("ROLE_ADMIN")).thenReturn(Optional.of(roleEntity));
+        when(roleRegistry.find("ROLE_USER")).thenReturn(Optional.of(newRole));
         when(userRepository.save(userEntity)).thenReturn(userEntity);
         when(userMapper.toDTO(userEntity)).thenReturn(userDTO);
 
@@ -176,8 +204,8 @@ class UserServiceTest {
         assertNotNull(updatedUser);
         assertEquals("Pavel22", updatedUser.getUsername());
         verify(userRepository).findByUsername("Pavel22");
-        verify(roleRepository).findByName("ROLE_ADMIN");
-        verify(roleRepository).findByName("ROLE_USER");
+        verify(roleRegistry).find("ROLE_ADMIN");
+        verify(roleRegistry).find("ROLE_USER");
         verify(userRepository).save(userEntity);
         verify(userMapper).toDTO(userEntity);
     }
@@ -190,20 +218,57 @@ class UserServiceTest {
             () -> userService.assignRolesToUser("UnknownUser", Set.of("ROLE_ADMIN")));
 
         verify(userRepository).findByUsername("UnknownUser");
-        verify(roleRepository, never()).findByName(any());
+        verify(roleRegistry, never()).find(any());
         verify(userRepository, never()).save(any());
     }
 
     @Test
     void assignRolesToUser_WhenRoleNotFound_ShouldThrowException() {
         when(userRepository.findByUsername("Pavel22")).thenReturn(Optional.of(userEntity));
-        when(roleRepository.findByName("ROLE_UNKNOWN")).thenReturn(Optional.empty());
+        when(roleRegistry.find("ROLE_UNKNOWN")).thenReturn(Optional.empty());
 
         assertThrows(RoleNotFoundException.class,
             () -> userService.assignRolesToUser("Pavel22", Set.of("ROLE_UNKNOWN")));
 
         verify(userRepository).findByUsername("Pavel22");
-        verify(roleRepository).findByName("ROLE_UNKNOWN");
+        verify(roleRegistry).find("ROLE_UNKNOWN");
         verify(userRepository, never()).save(any());
     }
+
+    @Test
+    void deleteUser_ShouldDeactivateUserAndEvictCachedIdOnlyAfterCommit() {
+        userEntity.setActive(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteUser(1L);
+
+            assertFalse(userEntity.isActive());
+            verify(userRepository).save(userEntity);
+            verify(userIdCache, never()).evict(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(userIdCache).evict("Pavel22");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deleteUser_WhenRolledBack_ShouldKeepCachedId() {
+        userEntity.setActive(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteUser(1L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(userIdCache, never()).evict(any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
 }